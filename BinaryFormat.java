@@ -0,0 +1,580 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+
+
+/**
+ * Versioned binary format of matricies.
+ * A 32 byte header is followed by the elements (payload), everything in
+ * little-endian byte order:
+ * <pre>
+ * offset  size  content
+ *      0     4  magic number "MTRX"
+ *      4     2  version
+ *      6     1  data type (1: float64, 2: serialized Java objects)
+ *      7     1  layout (ordinal of {@link Matrix.Layout})
+ *      8     4  height
+ *     12     4  width
+ *     16     8  length of the payload in bytes
+ *     24     8  CRC-32 of the payload
+ * </pre>
+ * Double matricies store their elements as raw doubles in row-major order,
+ * so a written file can also be mapped with
+ * {@link Matrix#map(java.nio.channels.FileChannel,
+ * java.nio.channels.FileChannel.MapMode, long, int, int)} at position
+ * {@value #HEADER_SIZE}.
+ * Generic matricies store their elements in row-major order with Java
+ * serialization.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class BinaryFormat {
+    
+    /**
+     * Magic number "MTRX" read as little-endian integer.
+     */
+    private static final int MAGIC = 'M' | 'T' << 8 | 'R' << 16 | 'X' << 24;
+    /**
+     * Current version of the format.
+     */
+    private static final short VERSION = 1;
+    /**
+     * Data types of the payload.
+     */
+    private static final byte FLOAT64 = 1, OBJECT = 2;
+    /**
+     * Size of the header in bytes.
+     */
+    static final int HEADER_SIZE = 32;
+    /**
+     * Size of the buffer the payload is transferred through.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private BinaryFormat() {}
+    
+    
+    
+    /**
+     * Consumer of filled buffers.
+     */
+    interface BufferSink {
+        
+        /**
+         * Consumes the remaining bytes of the given buffer.
+         * 
+         * @param buffer buffer to consume
+         * @throws IOException if an I/O error occurs
+         */
+        void accept(ByteBuffer buffer) throws IOException;
+    }
+    
+    
+    
+    /**
+     * Writes the given matrix to the channel.
+     * The payload is encoded twice, first to calculate the checksum for the
+     * header and then to write it, so nothing but one buffer is allocated.
+     * 
+     * @param matrix matrix to write
+     * @param channel channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(Matrix matrix, WritableByteChannel channel)
+            throws IOException {
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        
+        final CRC32 crc = new CRC32();
+        encode(matrix, buffer, crc::update);
+        
+        writeFully(channel, header(FLOAT64,
+                (byte)matrix.getLayout().ordinal(),
+                matrix.getHeight(), matrix.getWidth(),
+                (long)matrix.getHeight() * matrix.getWidth() * Double.BYTES,
+                crc.getValue()));
+        encode(matrix, buffer, (bytes) -> writeFully(channel, bytes));
+    }
+    
+    /**
+     * Reads a matrix from the channel.
+     * 
+     * @param channel channel to read from
+     * @return matrix read, with the layout it was written with
+     * @throws IOException if an I/O error occurs, the data is not a double
+     * matrix of a supported version or the checksum doesn't match
+     */
+    static Matrix read(ReadableByteChannel channel) throws IOException {
+        final ByteBuffer header = readHeader(channel, FLOAT64);
+        final int layout = header.get(7);
+        final int height = header.getInt(8);
+        final int width = header.getInt(12);
+        final long length = header.getLong(16);
+        
+        if(layout < 0 || layout >= Matrix.Layout.values().length) {
+            throw new IOException("unknown layout " + layout);
+        }
+        if(length != (long)height * width * Double.BYTES) {
+            throw new IOException("payload length doesn't match dimensions");
+        }
+        checkLength(channel, length);
+        
+        
+        
+        final Matrix matrix = new Matrix(height, width,
+                Matrix.Layout.values()[layout]);
+        final MatrixStorage storage = matrix.storage();
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        final CRC32 crc = new CRC32();
+        buffer.limit(0);
+        
+        long remaining = length;
+        for(int j=0; j<height; j++) {
+            final double[] row = storage.rowArray(j);
+            final int offset = storage.rowOffset(j);
+            
+            for(int i=0; i<width; ) {
+                if(!buffer.hasRemaining()) {
+                    buffer.clear();
+                    buffer.limit((int)Math.min(buffer.capacity(),
+                            remaining));
+                    readFully(channel, buffer);
+                    remaining -= buffer.position();
+                    buffer.flip();
+                    crc.update(buffer.duplicate());
+                }
+                
+                final int count =
+                        Math.min(width - i, buffer.remaining() / Double.BYTES);
+                if(row != null) {
+                    buffer.asDoubleBuffer().get(row, offset + i, count);
+                    buffer.position(buffer.position() + count*Double.BYTES);
+                } else {
+                    for(int k=0; k<count; k++) {
+                        storage.set(j, i + k, buffer.getDouble());
+                    }
+                }
+                i += count;
+            }
+        }
+        
+        checkCrc(header, crc);
+        return matrix;
+    }
+    
+    /**
+     * Writes the given generic matrix to the channel.
+     * 
+     * @param matrix matrix to write, all elements must be serializable
+     * @param channel channel to write to
+     * @throws IOException if an I/O error occurs or an element is not
+     * serializable
+     */
+    static void write(MatrixGeneric<?> matrix, WritableByteChannel channel)
+            throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for(int j=0; j<matrix.getHeight(); j++) {
+                for(int i=0; i<matrix.getWidth(); i++) {
+                    out.writeObject(matrix.get(j, i));
+                }
+            }
+        }
+        
+        final ByteBuffer payload = ByteBuffer.wrap(bytes.toByteArray());
+        final CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        
+        writeFully(channel, header(OBJECT, (byte)0,
+                matrix.getHeight(), matrix.getWidth(),
+                payload.remaining(), crc.getValue()));
+        writeFully(channel, payload);
+    }
+    
+    /**
+     * Reads a generic matrix from the channel.
+     * Only elements of the standard value types ({@link String}, the boxed
+     * primitives, {@link BigInteger} and {@link BigDecimal}) and of the given
+     * type and its subclasses are deserialized, every other class in the
+     * payload is rejected before it is initialized. Abstract superclasses of
+     * the type are accepted as well, as their descriptors are part of the
+     * payload but they can't be instantiated.
+     * 
+     * @param <E> type of the elements
+     * @param channel channel to read from
+     * @param type class of the elements, or {@code null} to only accept the
+     * standard value types
+     * @return matrix read
+     * @throws IllegalArgumentException if the type is {@link Object} or an
+     * interface, which would accept almost any class
+     * @throws IOException if an I/O error occurs, the data is not a generic
+     * matrix of a supported version, the checksum doesn't match or an
+     * element is of a class that isn't accepted
+     */
+    @SuppressWarnings("unchecked")
+    static <E> MatrixGeneric<E> readGeneric(ReadableByteChannel channel,
+            Class<E> type) throws IOException {
+        if(type == Object.class || type != null && type.isInterface()) {
+            throw new IllegalArgumentException(
+                    "element type is too broad: " + type.getName());
+        }
+        
+        final ByteBuffer header = readHeader(channel, OBJECT);
+        final int height = header.getInt(8);
+        final int width = header.getInt(12);
+        final long length = header.getLong(16);
+        if(length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("invalid payload length " + length);
+        }
+        checkLength(channel, length);
+        
+        final byte[] payload = readPayload(channel, (int)length);
+        final CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        checkCrc(header, crc);
+        
+        final MatrixGeneric<E> matrix = new MatrixGeneric<>(height, width);
+        try(ObjectInputStream in = new ElementInputStream(
+                new ByteArrayInputStream(payload), type)) {
+            for(int j=0; j<height; j++) {
+                for(int i=0; i<width; i++) {
+                    final Object element = in.readObject();
+                    matrix.set(j, i,
+                            type != null ? type.cast(element) : (E)element);
+                }
+            }
+        } catch(ClassNotFoundException | ClassCastException ex) {
+            throw new IOException(ex);
+        }
+        
+        return matrix;
+    }
+    
+    
+    
+    /**
+     * Object input stream that only resolves the classes of accepted
+     * elements.
+     */
+    private static final class ElementInputStream extends ObjectInputStream {
+        
+        /**
+         * Names of the classes that are always accepted.
+         * Superclasses have to be accepted too, as their descriptors are read
+         * as well, and so have the arrays the values consist of.
+         */
+        private static final Set<String> ACCEPTED = new HashSet<>(
+                Arrays.asList(String.class.getName(),
+                        Boolean.class.getName(), Character.class.getName(),
+                        Byte.class.getName(), Short.class.getName(),
+                        Integer.class.getName(), Long.class.getName(),
+                        Float.class.getName(), Double.class.getName(),
+                        Number.class.getName(), Enum.class.getName(),
+                        BigInteger.class.getName(),
+                        BigDecimal.class.getName(),
+                        boolean[].class.getName(), char[].class.getName(),
+                        byte[].class.getName(), short[].class.getName(),
+                        int[].class.getName(), long[].class.getName(),
+                        float[].class.getName(), double[].class.getName()));
+        
+        /**
+         * Type of the elements, {@code null} if only the standard value types
+         * are accepted.
+         */
+        private final Class<?> type;
+        
+        
+        
+        /**
+         * Constructs a new stream reading from the given stream.
+         * 
+         * @param in stream to read from
+         * @param type type of the elements, may be {@code null}
+         * @throws IOException if the stream header can't be read
+         */
+        ElementInputStream(InputStream in, Class<?> type) throws IOException {
+            super(in);
+            this.type = type;
+        }
+        
+        
+        
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            if(ACCEPTED.contains(desc.getName())) {
+                return super.resolveClass(desc);
+            }
+            if(type == null) {
+                throw new InvalidClassException(desc.getName(),
+                        "not an accepted element type");
+            }
+            if(type.getName().equals(desc.getName())) {
+                return type;
+            }
+            
+            // Loads the class without initializing it
+            final Class<?> c = Class.forName(desc.getName(), false,
+                    type.getClassLoader());
+            if(!type.isAssignableFrom(c) && !(c.isAssignableFrom(type)
+                    && Modifier.isAbstract(c.getModifiers()))) {
+                throw new InvalidClassException(desc.getName(),
+                        "not an accepted element type");
+            }
+            return c;
+        }
+        
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces)
+                throws IOException {
+            throw new InvalidClassException("proxies are not accepted");
+        }
+    }
+    
+    
+    
+    /**
+     * Encodes the elements of the given matrix in row-major order into the
+     * buffer and passes it to the sink whenever it is full.
+     * 
+     * @param matrix matrix to encode
+     * @param buffer buffer to encode the elements into
+     * @param sink consumer of the filled buffers
+     * @throws IOException if the sink throws one
+     */
+    static void encode(Matrix matrix, ByteBuffer buffer,
+            BufferSink sink) throws IOException {
+        final MatrixStorage storage = matrix.storage();
+        final int width = matrix.getWidth();
+        buffer.clear();
+        
+        for(int j=0; j<matrix.getHeight(); j++) {
+            final double[] row = storage.rowArray(j);
+            final int offset = storage.rowOffset(j);
+            
+            for(int i=0; i<width; ) {
+                if(!buffer.hasRemaining()) {
+                    buffer.flip();
+                    sink.accept(buffer);
+                    buffer.clear();
+                }
+                
+                final int count =
+                        Math.min(width - i, buffer.remaining() / Double.BYTES);
+                if(row != null) {
+                    buffer.asDoubleBuffer().put(row, offset + i, count);
+                    buffer.position(buffer.position() + count*Double.BYTES);
+                } else {
+                    for(int k=0; k<count; k++) {
+                        buffer.putDouble(storage.get(j, i + k));
+                    }
+                }
+                i += count;
+            }
+        }
+        
+        buffer.flip();
+        sink.accept(buffer);
+    }
+    
+    /**
+     * Returns a header with the given content.
+     * 
+     * @param type data type of the payload
+     * @param layout layout of the matrix
+     * @param height number of rows
+     * @param width number of columns
+     * @param length length of the payload in bytes
+     * @param crc CRC-32 of the payload
+     * @return header ready to be written
+     */
+    private static ByteBuffer header(byte type, byte layout,
+            int height, int width, long length, long crc) {
+        final ByteBuffer header =
+                ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).put(type).put(layout)
+                .putInt(height).putInt(width).putLong(length).putLong(crc);
+        header.flip();
+        
+        return header;
+    }
+    
+    /**
+     * Reads and validates a header.
+     * 
+     * @param channel channel to read from
+     * @param type expected data type
+     * @return header
+     * @throws IOException if an I/O error occurs or the header is invalid
+     */
+    private static ByteBuffer readHeader(ReadableByteChannel channel,
+            byte type) throws IOException {
+        final ByteBuffer header =
+                ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header);
+        
+        if(header.getInt(0) != MAGIC) {
+            throw new IOException("not a matrix");
+        }
+        if(header.getShort(4) != VERSION) {
+            throw new IOException("unsupported version "
+                    + header.getShort(4));
+        }
+        if(header.get(6) != type) {
+            throw new IOException("unexpected data type " + header.get(6));
+        }
+        if(header.getInt(8) < 0 || header.getInt(12) < 0) {
+            throw new IOException("invalid dimensions");
+        }
+        
+        return header;
+    }
+    
+    /**
+     * Throws an exception if the checksum doesn't match the header.
+     * 
+     * @param header header containing the expected checksum
+     * @param crc checksum of the payload read
+     * @throws IOException if the checksums differ
+     */
+    private static void checkCrc(ByteBuffer header, CRC32 crc)
+            throws IOException {
+        if(header.getLong(24) != crc.getValue()) {
+            throw new IOException("checksum mismatch");
+        }
+    }
+    
+    /**
+     * Throws an exception if the channel can tell that it doesn't contain
+     * as many bytes as the header announces, before anything is allocated.
+     * 
+     * @param channel channel to read the payload from
+     * @param length length of the payload in bytes
+     * @throws IOException if an I/O error occurs or the channel is too short
+     */
+    private static void checkLength(ReadableByteChannel channel, long length)
+            throws IOException {
+        if(channel instanceof SeekableByteChannel) {
+            final SeekableByteChannel seekable = (SeekableByteChannel)channel;
+            if(length > seekable.size() - seekable.position()) {
+                throw new EOFException("payload is truncated");
+            }
+        }
+    }
+    
+    /**
+     * Reads the payload of the given length.
+     * The array grows with the bytes actually read, so a corrupted length
+     * can't allocate more than twice the available data.
+     * 
+     * @param channel channel to read from
+     * @param length length of the payload in bytes
+     * @return payload
+     * @throws IOException if an I/O error occurs
+     * @throws EOFException if the channel ends before the payload
+     */
+    private static byte[] readPayload(ReadableByteChannel channel, int length)
+            throws IOException {
+        byte[] payload = new byte[Math.min(length, BUFFER_SIZE)];
+        int position = 0;
+        while(position < length) {
+            if(position == payload.length) {
+                payload = Arrays.copyOf(payload,
+                        (int)Math.min(length, 2L * payload.length));
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(payload, position,
+                    payload.length - position);
+            readFully(channel, buffer);
+            position = buffer.position();
+        }
+        
+        return payload;
+    }
+    
+    /**
+     * Writes all remaining bytes of the buffer to the channel.
+     * 
+     * @param channel channel to write to
+     * @param buffer buffer to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeFully(WritableByteChannel channel,
+            ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Reads from the channel until the buffer is full.
+     * 
+     * @param channel channel to read from
+     * @param buffer buffer to fill
+     * @throws IOException if an I/O error occurs
+     * @throws EOFException if the channel ends before the buffer is full
+     */
+    static void readFully(ReadableByteChannel channel,
+            ByteBuffer buffer) throws IOException {
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+}
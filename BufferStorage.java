@@ -0,0 +1,497 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+
+
+/**
+ * Storage which keeps all elements outside of the Java heap in direct
+ * buffers or memory-mapped files, so they are not scanned or moved by the
+ * garbage collector.
+ * The elements are stored in row-major order in chunks of at most
+ * 2^{@value #CHUNK_SHIFT} elements, so the size is not limited to the 2GB of a
+ * single buffer.
+ * The element at <code>(row, column)</code> is stored at the index
+ * <code>offset + row*stride + column*columnStride</code>.
+ * 
+ * The memory is released explicitly with {@link #close()} as soon as no
+ * thread accesses it anymore, or by the garbage collector once no storage
+ * references it. Every access registers itself with the memory for its
+ * duration, so closing a storage while another thread still reads it
+ * postpones the release until that access has finished instead of freeing
+ * memory in use. Changes to mapped files are written back when the memory is
+ * released.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+class BufferStorage extends MatrixStorage {
+    
+    /**
+     * Number of bits of the index of an element within its chunk.
+     */
+    static final int CHUNK_SHIFT = 27;
+    /**
+     * Number of elements per chunk.
+     */
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    /**
+     * Mask of the index of an element within its chunk.
+     */
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    /**
+     * <code>sun.misc.Unsafe</code> instance and its
+     * <code>invokeCleaner</code> method to release direct and mapped buffers
+     * immediately, null if not available (before Java 9).
+     */
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner",
+                    ByteBuffer.class);
+        } catch(ReflectiveOperationException | RuntimeException ex) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+    
+    
+    
+    /**
+     * Memory shared by a storage and all of its views.
+     * The threads accessing the memory are counted in striped counters, so
+     * parallel accesses rarely touch the same cache line. A thread first
+     * increments its counter and then checks if the memory is closed, while
+     * closing first marks the memory closed and then checks all counters.
+     * Either the thread sees the mark and backs off or the closing thread
+     * sees the access, in which case the last access to finish releases the
+     * memory.
+     */
+    static class Memory {
+        
+        /**
+         * Number of counters, a power of two.
+         */
+        private static final int STRIPES = 64;
+        /**
+         * Distance between two counters, so each one has its own cache line.
+         */
+        private static final int PADDING = 16;
+        
+        /**
+         * Buffers holding the memory.
+         */
+        private final ByteBuffer[] buffers;
+        /**
+         * Chunks of elements.
+         */
+        private final DoubleBuffer[] chunks;
+        /**
+         * Number of accesses in progress per stripe of threads.
+         */
+        private final AtomicIntegerArray users =
+                new AtomicIntegerArray(STRIPES * PADDING);
+        /**
+         * If the memory is closed and must not be accessed anymore.
+         */
+        private volatile boolean closed = false;
+        /**
+         * If the memory has been released.
+         */
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        
+        
+        /**
+         * Constructs a new memory on top of the given buffers.
+         * Every buffer except the last one must hold exactly
+         * {@link #CHUNK_SIZE} elements.
+         * 
+         * @param buffers buffers holding the elements
+         */
+        Memory(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+            chunks = new DoubleBuffer[buffers.length];
+            for(int k=0; k<buffers.length; k++) {
+                chunks[k] = buffers[k].asDoubleBuffer();
+            }
+        }
+        
+        
+        
+        /**
+         * Registers an access of the current thread, the memory isn't
+         * released before it is finished with {@link #release(int)}.
+         * 
+         * @return stripe of the access, to be passed to {@link #release(int)}
+         * @throws IllegalStateException if the memory is already closed
+         */
+        int acquire() {
+            final int stripe = ((int)Thread.currentThread().getId()
+                    & (STRIPES - 1)) * PADDING;
+            users.incrementAndGet(stripe);
+            if(closed) {
+                release(stripe);
+                throw new IllegalStateException("matrix is closed");
+            }
+            
+            return stripe;
+        }
+        
+        /**
+         * Finishes an access and releases the memory if it was the last one
+         * to a closed memory.
+         * 
+         * @param stripe stripe returned by {@link #acquire()}
+         */
+        void release(int stripe) {
+            if(users.decrementAndGet(stripe) == 0 && closed) {
+                free();
+            }
+        }
+        
+        /**
+         * Returns the chunks of elements, only to be used between
+         * {@link #acquire()} and {@link #release(int)}.
+         * 
+         * @return chunks of elements
+         */
+        DoubleBuffer[] chunks() {
+            return chunks;
+        }
+        
+        /**
+         * Closes the memory, so any access afterwards throws an exception.
+         * The memory is released immediately if no thread accesses it,
+         * otherwise as soon as the last access finishes.
+         */
+        void close() {
+            closed = true;
+            free();
+        }
+        
+        /**
+         * Writes changes to mapped files back and releases the memory, unless
+         * a thread still accesses it or it is already released.
+         */
+        private void free() {
+            for(int k=0; k<users.length(); k+=PADDING) {
+                if(users.get(k) != 0) {
+                    return;
+                }
+            }
+            if(!released.compareAndSet(false, true)) {
+                return;
+            }
+            
+            for(ByteBuffer buffer : buffers) {
+                if(buffer instanceof MappedByteBuffer
+                        && !buffer.isReadOnly()) {
+                    ((MappedByteBuffer)buffer).force();
+                }
+                release(buffer);
+            }
+        }
+        
+        /**
+         * Releases the memory of the given buffer immediately if possible,
+         * otherwise it is left to the garbage collector. Mapped buffers are
+         * unmapped.
+         * 
+         * @param buffer direct buffer to release
+         */
+        private static void release(ByteBuffer buffer) {
+            if(INVOKE_CLEANER == null) {
+                return;
+            }
+            
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch(ReflectiveOperationException ex) {
+                //Left to the garbage collector
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Dimensions of the stored matrix.
+     */
+    private final int height, width;
+    /**
+     * Memory containing the elements.
+     */
+    private final Memory memory;
+    /**
+     * Index of the first element.
+     */
+    private final long offset;
+    /**
+     * Distance between two rows and two columns.
+     */
+    private final long stride, columnStride;
+    /**
+     * Layout reported by this storage.
+     */
+    private final Matrix.Layout layout;
+    
+    
+    
+    /**
+     * Constructs a new, zero initialized storage with <code>height</code>
+     * rows and <code>width</code> columns outside of the heap.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     */
+    BufferStorage(int height, int width) {
+        this(height, width, new Memory(allocate((long)height * width)),
+                0, width, 1, Matrix.Layout.OFF_HEAP);
+    }
+    
+    /**
+     * Constructs a new storage on top of the given memory.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param memory memory containing the elements
+     * @param offset index of the first element
+     * @param stride distance between two rows
+     * @param columnStride distance between two columns
+     * @param layout layout reported by this storage
+     */
+    BufferStorage(int height, int width, Memory memory,
+            long offset, long stride, long columnStride,
+            Matrix.Layout layout) {
+        this.height = height;
+        this.width = width;
+        this.memory = memory;
+        this.offset = offset;
+        this.stride = stride;
+        this.columnStride = columnStride;
+        this.layout = layout;
+    }
+    
+    
+    
+    /**
+     * Constructs a new storage on top of a part of a file, which is mapped
+     * into memory.
+     * The elements are stored in row-major order as little-endian doubles.
+     * A file which is too short is extended if it is mapped for writing.
+     * The mapping stays valid after the channel is closed.
+     * 
+     * @param channel channel of the file
+     * @param mode mode to map the file with
+     * @param position position of the first element in the file
+     * @param height number of rows
+     * @param width number of columns
+     * @return storage on top of the mapped file
+     * @throws IOException if the file can't be mapped
+     */
+    static BufferStorage map(FileChannel channel, FileChannel.MapMode mode,
+            long position, int height, int width) throws IOException {
+        final long size = (long)height * width;
+        final int count = (int)((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        final ByteBuffer[] buffers = new ByteBuffer[Math.max(1, count)];
+        
+        for(int k=0; k<buffers.length; k++) {
+            final long first = (long)k << CHUNK_SHIFT;
+            final long elements = Math.min(CHUNK_SIZE, size - first);
+            buffers[k] = channel.map(mode, position + first * Double.BYTES,
+                    Math.max(0, elements) * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        
+        return new BufferStorage(height, width, new Memory(buffers),
+                0, width, 1, Matrix.Layout.OFF_HEAP);
+    }
+    
+    /**
+     * Allocates zero initialized direct buffers in native byte order for the
+     * given number of elements.
+     * 
+     * @param size number of elements
+     * @return buffers, each holding {@link #CHUNK_SIZE} elements except the
+     * last one
+     */
+    private static ByteBuffer[] allocate(long size) {
+        final int count = (int)((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        final ByteBuffer[] buffers = new ByteBuffer[Math.max(1, count)];
+        
+        for(int k=0; k<buffers.length; k++) {
+            final long elements =
+                    Math.min(CHUNK_SIZE, size - ((long)k << CHUNK_SHIFT));
+            buffers[k] = ByteBuffer.allocateDirect(
+                    (int)Math.max(0, elements) * Double.BYTES)
+                    .order(ByteOrder.nativeOrder());
+        }
+        
+        return buffers;
+    }
+    
+    
+    
+    /**
+     * Returns the index of the specified element.
+     * 
+     * @param row row of the element
+     * @param column column of the element
+     * @return index of the element
+     */
+    private long index(int row, int column) {
+        if(row < 0 || row >= height || column < 0 || column >= width) {
+            throw new IndexOutOfBoundsException(
+                    "(" + row + ", " + column + ")");
+        }
+        
+        return offset + row*stride + column*columnStride;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double get(int row, int column) {
+        final long index = index(row, column);
+        final int stripe = memory.acquire();
+        try {
+            return memory.chunks()[(int)(index >>> CHUNK_SHIFT)]
+                    .get((int)(index & CHUNK_MASK));
+        } finally {
+            memory.release(stripe);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void set(int row, int column, double value) {
+        final long index = index(row, column);
+        final int stripe = memory.acquire();
+        try {
+            memory.chunks()[(int)(index >>> CHUNK_SHIFT)]
+                    .put((int)(index & CHUNK_MASK), value);
+        } finally {
+            memory.release(stripe);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Matrix.Layout getLayout() {
+        return layout;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage create(int height, int width) {
+        return new BufferStorage(height, width);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage view(int row, int column, int height, int width) {
+        return new BufferStorage(height, width, memory,
+                offset + row*stride + column*columnStride,
+                stride, columnStride, layout);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage transposedView() {
+        return new BufferStorage(width, height, memory,
+                offset, columnStride, stride, layout);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object array() {
+        return memory;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean sameElements(MatrixStorage other) {
+        if(!(other instanceof BufferStorage)) {
+            return false;
+        }
+        
+        final BufferStorage buffer = (BufferStorage)other;
+        return memory == buffer.memory && offset == buffer.offset
+                && (stride == buffer.stride || height <= 1)
+                && (columnStride == buffer.columnStride || width <= 1)
+                && height == buffer.height && width == buffer.width;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void close() {
+        memory.close();
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Cholesky decomposition of a symmetric positive definite matrix.
+ * The matrix is decomposed into <code>A = L*L^T</code>, where <code>L</code>
+ * is lower triangular with a positive diagonal. Only the lower triangle of
+ * the matrix is read.
+ * 
+ * The decomposition is calculated with a blocked right-looking algorithm:
+ * after a diagonal block is decomposed, the panel below it is solved and the
+ * trailing submatrix is updated, both in parallel row blocks.
+ * It can either work on a flat copy or in-place on the given matrix, where
+ * it overwrites the lower triangle with <code>L</code> and leaves the upper
+ * triangle untouched. Matricies whose rows are not stored in arrays
+ * (OFF_HEAP, mapped or transposed views) are always decomposed on a flat
+ * copy, which is written back in the in-place mode.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class CholeskyDecomposition implements Decomposition {
+    
+    /**
+     * Number of columns of a block.
+     */
+    private static final int BLOCK_SIZE = 64;
+    /**
+     * Number of rows processed by a single parallel task.
+     */
+    private static final int TASK_ROWS = 16;
+    
+    
+    
+    /**
+     * Number of rows and columns of the decomposed matrix.
+     */
+    private final int size;
+    /**
+     * Arrays of the rows of the matrix holding <code>L</code> in its lower
+     * triangle.
+     */
+    private final double[][] rows;
+    /**
+     * Index of the first element of every row in its array.
+     */
+    private final int[] offsets;
+    
+    
+    
+    /**
+     * Calculates the Cholesky decomposition of a copy of the given matrix.
+     * 
+     * @param matrix symmetric positive definite matrix to decompose
+     * @throws ArithmeticException if the matrix is not square or not
+     * positive definite
+     */
+    public CholeskyDecomposition(Matrix matrix) {
+        this(matrix, false);
+    }
+    
+    /**
+     * Calculates the Cholesky decomposition of the given matrix.
+     * If <code>inPlace</code> is set, the lower triangle of the given matrix
+     * gets overwritten with <code>L</code> (also if the decomposition fails).
+     * No second matrix is allocated if every row of the given matrix is
+     * stored in an array (NESTED, FLAT and their non-transposed views).
+     * Otherwise the matrix is decomposed on a flat copy, which this
+     * decomposition keeps to solve against, and <code>L</code> is written
+     * back afterwards.
+     * 
+     * @param matrix symmetric positive definite matrix to decompose
+     * @param inPlace if the lower triangle of the given matrix shall be
+     * overwritten
+     * @throws ArithmeticException if the matrix is not square or not
+     * positive definite
+     */
+    public CholeskyDecomposition(Matrix matrix, boolean inPlace) {
+        if(matrix.getHeight() != matrix.getWidth()) {
+            throw new ArithmeticException("Cholesky decomposition only "
+                    + "defined for square matricies");
+        }
+        
+        size = matrix.getHeight();
+        rows = new double[size][];
+        offsets = new int[size];
+        
+        boolean rowArrays = true;
+        for(int j=0; j<size; j++) {
+            rowArrays &= matrix.storage().rowArray(j) != null;
+        }
+        
+        final Matrix l = (inPlace && rowArrays) ? matrix
+                : new Matrix(size, size, new FlatStorage(size, size,
+                        matrix.toFlatArray(), 0, size));
+        for(int j=0; j<size; j++) {
+            rows[j] = l.storage().rowArray(j);
+            offsets[j] = l.storage().rowOffset(j);
+        }
+        
+        try {
+            decompose();
+        } finally {
+            if(inPlace && !rowArrays) {
+                matrix.forEachIndices((j, i) -> {
+                    if(j >= i) {
+                        matrix.set(j, i, get(j, i));
+                    }
+                });
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Returns the element of the working matrix at the given position.
+     * 
+     * @param row row of the element
+     * @param column column of the element
+     * @return element at the given position
+     */
+    private double get(int row, int column) {
+        return rows[row][offsets[row] + column];
+    }
+    
+    /**
+     * Decomposes the working matrix blockwise.
+     */
+    private void decompose() {
+        for(int k0=0; k0<size; k0+=BLOCK_SIZE) {
+            final int k1 = Math.min(size, k0 + BLOCK_SIZE);
+            final int from = k0;
+            
+            decomposeDiagonal(k0, k1);
+            forRowBlocks(k1, size, (j) -> solvePanelRow(j, from, k1));
+            forRowBlocks(k1, size, (j) -> updateTrailingRow(j, from, k1));
+        }
+    }
+    
+    /**
+     * Applies the given action on all rows in the given range, in parallel
+     * blocks if there are enough.
+     * 
+     * @param rowFrom first row (inclusive)
+     * @param rowTo last row (exclusive)
+     * @param action action to apply on every row
+     */
+    private void forRowBlocks(int rowFrom, int rowTo,
+            IntConsumer action) {
+        
+        if(rowTo - rowFrom <= 2*TASK_ROWS) {
+            for(int j=rowFrom; j<rowTo; j++) {
+                action.accept(j);
+            }
+            return;
+        }
+        
+        IntStream.range(0, (rowTo - rowFrom + TASK_ROWS - 1) / TASK_ROWS)
+                .parallel().forEach((block) -> {
+                    final int end = Math.min(rowTo,
+                            rowFrom + (block + 1) * TASK_ROWS);
+                    for(int j=rowFrom + block*TASK_ROWS; j<end; j++) {
+                        action.accept(j);
+                    }
+                });
+    }
+    
+    /**
+     * Decomposes the diagonal block unblocked.
+     * All updates from the columns left of the block were already applied.
+     * 
+     * @param k0 first row and column of the block (inclusive)
+     * @param k1 last row and column of the block (exclusive)
+     */
+    private void decomposeDiagonal(int k0, int k1) {
+        for(int j=k0; j<k1; j++) {
+            final double[] rowJ = rows[j];
+            final int offsetJ = offsets[j];
+            
+            for(int i=k0; i<=j; i++) {
+                final double[] rowI = rows[i];
+                final int offsetI = offsets[i];
+                
+                double sum = rowJ[offsetJ + i];
+                for(int p=k0; p<i; p++) {
+                    sum -= rowJ[offsetJ + p] * rowI[offsetI + p];
+                }
+                
+                if(i == j) {
+                    if(!(sum > 0)) {
+                        throw new ArithmeticException(
+                                "matrix is not positive definite");
+                    }
+                    rowJ[offsetJ + j] = Math.sqrt(sum);
+                } else {
+                    rowJ[offsetJ + i] = sum / rowI[offsetI + i];
+                }
+            }
+        }
+    }
+    
+    /**
+     * Solves a row of the panel below the diagonal block.
+     * 
+     * @param j row to solve
+     * @param k0 first column of the block (inclusive)
+     * @param k1 last column of the block (exclusive)
+     */
+    private void solvePanelRow(int j, int k0, int k1) {
+        final double[] rowJ = rows[j];
+        final int offsetJ = offsets[j];
+        
+        for(int i=k0; i<k1; i++) {
+            final double[] rowI = rows[i];
+            final int offsetI = offsets[i];
+            
+            double sum = rowJ[offsetJ + i];
+            for(int p=k0; p<i; p++) {
+                sum -= rowJ[offsetJ + p] * rowI[offsetI + p];
+            }
+            rowJ[offsetJ + i] = sum / rowI[offsetI + i];
+        }
+    }
+    
+    /**
+     * Subtracts the contribution of the solved panel from the lower triangle
+     * of a row of the trailing submatrix.
+     * 
+     * @param j row to update
+     * @param k0 first column of the panel (inclusive)
+     * @param k1 last column of the panel (exclusive)
+     */
+    private void updateTrailingRow(int j, int k0, int k1) {
+        final double[] rowJ = rows[j];
+        final int offsetJ = offsets[j];
+        
+        for(int i=k1; i<=j; i++) {
+            final double[] rowI = rows[i];
+            final int offsetI = offsets[i];
+            
+            double sum = 0;
+            for(int p=k0; p<k1; p++) {
+                sum += rowJ[offsetJ + p] * rowI[offsetI + p];
+            }
+            rowJ[offsetJ + i] -= sum;
+        }
+    }
+    
+    
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Returns the lower triangular factor <code>L</code>.
+     * 
+     * @return lower triangular factor
+     */
+    public Matrix getL() {
+        final Matrix l = new Matrix(size, size, Matrix.Layout.FLAT);
+        l.setParallel((j, i) -> (j >= i) ? get(j, i) : 0);
+        
+        return l;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double determinant() {
+        double determinant = 1;
+        for(int k=0; k<size; k++) {
+            determinant *= get(k, k);
+        }
+        
+        return determinant * determinant;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The solution is returned in a flat matrix.
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        if(b.getHeight() != size) {
+            throw new ArithmeticException("row dimensions must agree");
+        }
+        
+        
+        
+        final int width = b.getWidth();
+        final double[] x = b.toFlatArray();
+        
+        //Forward substitution with L
+        for(int j=0; j<size; j++) {
+            for(int k=0; k<j; k++) {
+                final double factor = get(j, k);
+                for(int i=0; i<width; i++) {
+                    x[j*width + i] -= factor * x[k*width + i];
+                }
+            }
+            
+            final double diagonal = get(j, j);
+            for(int i=0; i<width; i++) {
+                x[j*width + i] /= diagonal;
+            }
+        }
+        
+        //Back substitution with L^T
+        for(int j=size-1; j>=0; j--) {
+            final double diagonal = get(j, j);
+            for(int i=0; i<width; i++) {
+                x[j*width + i] /= diagonal;
+            }
+            
+            for(int k=0; k<j; k++) {
+                final double factor = get(j, k);
+                for(int i=0; i<width; i++) {
+                    x[k*width + i] -= factor * x[j*width + i];
+                }
+            }
+        }
+        
+        return new Matrix(size, width,
+                new FlatStorage(size, width, x, 0, width));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void solve(double[] b, double[] x) {
+        if(b.length != size || x.length != size) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        
+        
+        
+        if(x != b) {
+            System.arraycopy(b, 0, x, 0, size);
+        }
+        
+        //Forward substitution with L
+        for(int j=0; j<size; j++) {
+            final double[] row = rows[j];
+            final int offset = offsets[j];
+            
+            double sum = x[j];
+            for(int k=0; k<j; k++) {
+                sum -= row[offset + k] * x[k];
+            }
+            x[j] = sum / row[offset + j];
+        }
+        
+        //Back substitution with L^T
+        for(int j=size-1; j>=0; j--) {
+            final double[] row = rows[j];
+            final int offset = offsets[j];
+            
+            final double value = x[j] /= row[offset + j];
+            for(int k=0; k<j; k++) {
+                x[k] -= row[offset + k] * value;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+
+
+/**
+ * Decomposition of a square matrix which can be used to solve linear
+ * systems.
+ * The matrix is decomposed once at construction, afterwards the factors can
+ * be reused to solve against as many right-hand sides as needed.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public interface Decomposition {
+    
+    /**
+     * Returns the number of rows and columns of the decomposed matrix.
+     * 
+     * @return number of rows and columns
+     */
+    int getSize();
+    
+    /**
+     * Returns the determinant of the decomposed matrix.
+     * 
+     * @return determinant of the decomposed matrix
+     */
+    double determinant();
+    
+    /**
+     * Solves <code>A*X = B</code> for <code>X</code>, where <code>A</code> is
+     * the decomposed matrix.
+     * 
+     * @param b right-hand sides, one per column
+     * @return solutions, one per column
+     * @throws ArithmeticException if the height of <code>b</code> doesn't
+     * match or the system can't be solved with this decomposition
+     */
+    Matrix solve(Matrix b);
+    
+    /**
+     * Solves <code>A*x = b</code> for a single right-hand side without
+     * allocating, where <code>A</code> is the decomposed matrix.
+     * 
+     * @param b right-hand side
+     * @param x array to store the solution in, may be the same array as
+     * <code>b</code>
+     * @throws ArithmeticException if the length of the arrays doesn't match
+     * or the system can't be solved with this decomposition
+     */
+    void solve(double[] b, double[] x);
+    
+    /**
+     * Returns the inverse of the decomposed matrix.
+     * 
+     * @return inverse of the decomposed matrix
+     * @throws ArithmeticException if the decomposed matrix is singular
+     */
+    default Matrix inverse() {
+        return solve(Matrix.identity(getSize()));
+    }
+}
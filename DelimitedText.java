@@ -0,0 +1,408 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Reader and writer for matricies in delimiter separated text files
+ * (CSV, TSV, ...), one row per line.
+ * The reader scans the file once to find the number of rows and splits it
+ * into chunks of whole lines, which are then parsed in parallel directly into
+ * the storage of the matrix with the {@link DoubleParser}.
+ * The writer formats blocks of rows in parallel and writes them in order.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class DelimitedText {
+    
+    /**
+     * Minimum number of bytes of a chunk parsed by a single task.
+     */
+    private static final int CHUNK_SIZE = 1 << 22;
+    /**
+     * Size of the buffer the file is scanned with.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Number of rows formatted by a single task when writing.
+     */
+    private static final int WRITE_ROWS = 256;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private DelimitedText() {}
+    
+    
+    
+    /**
+     * Lines of the file parsed by a single task.
+     */
+    private static class Chunk {
+        
+        /**
+         * Position of the first and behind the last byte in the file.
+         */
+        final long from, to;
+        /**
+         * Index of the first row.
+         */
+        final int row;
+        /**
+         * Number of the first line in the file, starting at 1.
+         */
+        final int line;
+        
+        
+        
+        /**
+         * Constructs a new chunk.
+         * 
+         * @param from position of the first byte in the file
+         * @param to position behind the last byte in the file
+         * @param row index of the first row
+         * @param line number of the first line in the file, starting at 1
+         */
+        Chunk(long from, long to, int row, int line) {
+            this.from = from;
+            this.to = to;
+            this.row = row;
+            this.line = line;
+        }
+    }
+    
+    
+    
+    /**
+     * Reads a matrix from the given file.
+     * Empty lines and lines of only spaces and tabs are skipped. Values may
+     * be surrounded by spaces or double quotes.
+     * 
+     * @param path file to read
+     * @param delimiter character separating the values of a row
+     * @param header if the first line is a header which is skipped
+     * @param layout layout of the new matrix
+     * @return matrix read
+     * @throws IllegalArgumentException if the delimiter is not an ASCII
+     * character
+     * @throws IOException if an I/O error occurs, a value is not a number or
+     * the rows have different lengths
+     */
+    static Matrix read(Path path, char delimiter, boolean header,
+            Matrix.Layout layout) throws IOException {
+        checkDelimiter(delimiter);
+        
+        try(FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            
+            //Find the chunks, the number of rows and columns
+            final List<Chunk> chunks = new ArrayList<>();
+            final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            boolean skip = header;
+            boolean content = false;
+            int delimiters = 0;
+            int height = 0;
+            int width = 0;
+            int line = 1;
+            int rowStart = 0;
+            int lineStart = 1;
+            long chunkStart = 0;
+            long position = 0;
+            
+            while(channel.read(buffer, position) > 0) {
+                buffer.flip();
+                for(int k=0; k<buffer.limit(); k++, position++) {
+                    final byte b = buffer.get(k);
+                    if(b == '\n') {
+                        line++;
+                        if(skip && content) {
+                            skip = false;
+                            chunkStart = position + 1;
+                            lineStart = line;
+                        } else if(content) {
+                            height++;
+                            if(height == 1) {
+                                width = delimiters + 1;
+                            }
+                            if(position + 1 - chunkStart >= CHUNK_SIZE) {
+                                chunks.add(new Chunk(chunkStart,
+                                        position + 1, rowStart, lineStart));
+                                chunkStart = position + 1;
+                                rowStart = height;
+                                lineStart = line;
+                            }
+                        }
+                        content = false;
+                        delimiters = 0;
+                    } else {
+                        if(b == delimiter) {
+                            delimiters++;
+                        }
+                        if(!isBlank(b)) {
+                            content = true;
+                        }
+                    }
+                }
+                buffer.clear();
+            }
+            if(content && !skip) {
+                height++;
+                if(height == 1) {
+                    width = delimiters + 1;
+                }
+            }
+            if(chunkStart < position && !skip) {
+                chunks.add(new Chunk(chunkStart, position, rowStart,
+                        lineStart));
+            }
+            
+            
+            
+            //Parse the chunks in parallel
+            final Matrix matrix = new Matrix(height, width, layout);
+            final int columns = width;
+            final IOException[] error = new IOException[1];
+            IntStream.range(0, chunks.size()).parallel().forEach((k) -> {
+                try {
+                    parse(channel, chunks.get(k), delimiter, matrix, columns);
+                } catch(IOException ex) {
+                    synchronized(error) {
+                        error[0] = ex;
+                    }
+                }
+            });
+            if(error[0] != null) {
+                throw error[0];
+            }
+            
+            return matrix;
+        }
+    }
+    
+    /**
+     * Parses the lines of a chunk into the rows of the matrix.
+     * 
+     * @param channel channel of the file
+     * @param chunk chunk to parse
+     * @param delimiter character separating the values of a row
+     * @param matrix matrix to store the values in
+     * @param width number of values per row
+     * @throws IOException if an I/O error occurs, a value is not a number or
+     * a row has another length
+     */
+    private static void parse(FileChannel channel, Chunk chunk,
+            char delimiter, Matrix matrix, int width) throws IOException {
+        final ByteBuffer buffer =
+                ByteBuffer.allocate((int)(chunk.to - chunk.from));
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, chunk.from + buffer.position()) < 0) {
+                throw new IOException("file changed while reading");
+            }
+        }
+        final byte[] bytes = buffer.array();
+        final MatrixStorage storage = matrix.storage();
+        
+        int row = chunk.row;
+        int line = chunk.line - 1;
+        int p = 0;
+        while(p < bytes.length) {
+            //Find the end of the line, skip blank ones
+            int end = p;
+            boolean blank = true;
+            while(end < bytes.length && bytes[end] != '\n') {
+                blank &= isBlank(bytes[end]);
+                end++;
+            }
+            final int next = end + 1;
+            line++;
+            if(blank) {
+                p = next;
+                continue;
+            }
+            if(bytes[end-1] == '\r') {
+                end--;
+            }
+            
+            final double[] array = storage.rowArray(row);
+            final int offset = storage.rowOffset(row);
+            int column = 0;
+            while(true) {
+                int fieldEnd = p;
+                while(fieldEnd < end && bytes[fieldEnd] != delimiter) {
+                    fieldEnd++;
+                }
+                if(column >= width) {
+                    throw new IOException("line " + line + ": more than "
+                            + width + " values");
+                }
+                
+                final double value;
+                try {
+                    value = DoubleParser.parse(bytes, p, fieldEnd);
+                } catch(NumberFormatException ex) {
+                    throw new IOException("line " + line + ": \""
+                            + new String(bytes, p, fieldEnd - p,
+                                    StandardCharsets.ISO_8859_1)
+                            + "\" is not a number", ex);
+                }
+                if(array != null) {
+                    array[offset + column] = value;
+                } else {
+                    storage.set(row, column, value);
+                }
+                column++;
+                
+                if(fieldEnd >= end) {
+                    break;
+                }
+                p = fieldEnd + 1;
+            }
+            if(column != width) {
+                throw new IOException("line " + line + ": " + column
+                        + " values instead of " + width);
+            }
+            
+            row++;
+            p = next;
+        }
+    }
+    
+    
+    
+    /**
+     * Writes the given matrix to a file, one row per line.
+     * 
+     * @param matrix matrix to write
+     * @param path file to write
+     * @param delimiter character separating the values of a row
+     * @throws IllegalArgumentException if the delimiter is not an ASCII
+     * character
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(Matrix matrix, Path path, char delimiter)
+            throws IOException {
+        checkDelimiter(delimiter);
+        
+        try(FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+                OutputStream out = Channels.newOutputStream(channel)) {
+            
+            final int blocks = (matrix.getHeight() + WRITE_ROWS - 1)
+                    / WRITE_ROWS;
+            final int batch = 4 * ForkJoinPool.getCommonPoolParallelism();
+            
+            //Format a few blocks per core in parallel, write them in order
+            for(int first=0; first<blocks; first+=batch) {
+                final int from = first;
+                final byte[][] formatted = IntStream.range(from,
+                        Math.min(blocks, from + batch)).parallel()
+                        .mapToObj((k) -> format(matrix, k * WRITE_ROWS,
+                                Math.min(matrix.getHeight(),
+                                        (k + 1) * WRITE_ROWS), delimiter))
+                        .toArray(byte[][]::new);
+                
+                for(byte[] bytes : formatted) {
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Formats the given rows of the matrix.
+     * 
+     * @param matrix matrix to format
+     * @param rowFrom first row (inclusive)
+     * @param rowTo last row (exclusive)
+     * @param delimiter character separating the values of a row
+     * @return formatted rows
+     */
+    private static byte[] format(Matrix matrix, int rowFrom, int rowTo,
+            char delimiter) {
+        final StringBuilder builder = new StringBuilder();
+        
+        for(int j=rowFrom; j<rowTo; j++) {
+            for(int i=0; i<matrix.getWidth(); i++) {
+                if(i > 0) {
+                    builder.append(delimiter);
+                }
+                builder.append(matrix.get(j, i));
+            }
+            builder.append('\n');
+        }
+        
+        return builder.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+    
+    
+    
+    /**
+     * Throws an exception if the delimiter can't be compared with the bytes
+     * of the file directly.
+     * 
+     * @param delimiter character separating the values of a row
+     * @throws IllegalArgumentException if the delimiter is not an ASCII
+     * character
+     */
+    private static void checkDelimiter(char delimiter) {
+        if(delimiter > 0x7F) {
+            throw new IllegalArgumentException(
+                    "delimiter must be an ASCII character");
+        }
+    }
+    
+    /**
+     * Returns if the byte is blank (space, tab or carriage return), lines of
+     * only blank bytes are skipped.
+     * 
+     * @param b byte to check
+     * @return if the byte is blank
+     */
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
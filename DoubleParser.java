@@ -0,0 +1,282 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+
+
+/**
+ * Fast parser of decimal numbers in ASCII text.
+ * Numbers with up to 19 significant digits are converted exactly, small ones
+ * by a single floating point operation (Clinger) and the others by
+ * multiplying with a 128 bit approximation of the power of ten
+ * (Eisel-Lemire). All other numbers, e.g. with more digits, subnormal
+ * results, NaN or infinity, are passed to {@link Double#parseDouble(String)}.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class DoubleParser {
+    
+    /**
+     * Range of decimal exponents covered by the table of powers of five.
+     */
+    private static final int MIN_EXPONENT = -342, MAX_EXPONENT = 308;
+    /**
+     * Powers of ten which are exactly representable as doubles.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /**
+     * 128 bit approximations of <code>5^q</code> normalized so the highest
+     * bit is set, the high and the low 64 bits for every exponent from
+     * {@link #MIN_EXPONENT} to {@link #MAX_EXPONENT}.
+     */
+    private static final long[] POWERS_OF_FIVE =
+            new long[2 * (MAX_EXPONENT - MIN_EXPONENT + 1)];
+    
+    static {
+        final BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        final BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        
+        for(int q=MIN_EXPONENT; q<=MAX_EXPONENT; q++) {
+            BigInteger power;
+            if(q >= 0) {
+                power = BigInteger.valueOf(5).pow(q);
+                while(power.compareTo(two127) < 0) {
+                    power = power.shiftLeft(1);
+                }
+                while(power.compareTo(two128) >= 0) {
+                    power = power.shiftRight(1);
+                }
+            } else {
+                //Reciprocal rounded up
+                final BigInteger five = BigInteger.valueOf(5).pow(-q);
+                final int z = five.subtract(BigInteger.ONE).bitLength();
+                final int b = (q >= -27) ? z + 127 : 2*z + 128;
+                power = BigInteger.ONE.shiftLeft(b).divide(five)
+                        .add(BigInteger.ONE);
+                while(power.compareTo(two128) >= 0) {
+                    power = power.shiftRight(1);
+                }
+            }
+            
+            final int index = 2 * (q - MIN_EXPONENT);
+            POWERS_OF_FIVE[index] = power.shiftRight(64).longValue();
+            POWERS_OF_FIVE[index + 1] = power.longValue();
+        }
+    }
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private DoubleParser() {}
+    
+    
+    
+    /**
+     * Parses the decimal number in the given range of characters.
+     * Spaces and double quotes around the number are ignored.
+     * 
+     * @param bytes characters
+     * @param from first character of the number
+     * @param to character behind the number
+     * @return parsed number
+     * @throws NumberFormatException if the characters are not a number
+     */
+    static double parse(byte[] bytes, int from, int to) {
+        while(from < to && (bytes[from] == ' ' || bytes[from] == '"')) {
+            from++;
+        }
+        while(to > from && (bytes[to-1] == ' ' || bytes[to-1] == '"')) {
+            to--;
+        }
+        
+        
+        
+        int p = from;
+        final boolean negative = p < to && bytes[p] == '-';
+        if(p < to && (bytes[p] == '-' || bytes[p] == '+')) {
+            p++;
+        }
+        
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        boolean exact = true;
+        boolean fraction = false;
+        for(; p<to; p++) {
+            final int b = bytes[p];
+            if(b >= '0' && b <= '9') {
+                any = true;
+                if(mantissa != 0 || b != '0') {
+                    if(digits < 19) {
+                        mantissa = 10*mantissa + (b - '0');
+                        digits++;
+                    } else {
+                        exact = false;
+                    }
+                }
+                if(fraction) {
+                    exponent--;
+                }
+            } else if(b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        
+        if(any && p < to && (bytes[p] == 'e' || bytes[p] == 'E')) {
+            p++;
+            final boolean negativeExponent = p < to && bytes[p] == '-';
+            if(p < to && (bytes[p] == '-' || bytes[p] == '+')) {
+                p++;
+            }
+            
+            int value = 0;
+            final int start = p;
+            for(; p<to && bytes[p] >= '0' && bytes[p] <= '9'; p++) {
+                value = Math.min(10*value + (bytes[p] - '0'), 100000);
+            }
+            exponent += negativeExponent ? -value : value;
+            exact &= p > start;
+        }
+        
+        
+        
+        if(any && exact && p == to) {
+            if(mantissa == 0) {
+                return negative ? -0.0 : 0.0;
+            }
+            
+            final double value = convert(mantissa, exponent);
+            if(!Double.isNaN(value)) {
+                return negative ? -value : value;
+            }
+        }
+        
+        return Double.parseDouble(new String(bytes, from, to - from,
+                StandardCharsets.ISO_8859_1));
+    }
+    
+    /**
+     * Returns the double closest to <code>mantissa * 10^exponent</code>.
+     * 
+     * @param mantissa significant digits, not zero
+     * @param exponent decimal exponent
+     * @return closest double or NaN if the result can't be determined
+     * exactly by the fast algorithms
+     */
+    private static double convert(long mantissa, int exponent) {
+        //Clinger: both factors and the result are exact or correctly rounded
+        if(mantissa >= 0 && mantissa < (1L << 53)
+                && Math.abs(exponent) <= 22) {
+            return (exponent < 0)
+                    ? mantissa / POWERS_OF_TEN[-exponent]
+                    : mantissa * POWERS_OF_TEN[exponent];
+        }
+        
+        if(exponent < MIN_EXPONENT || exponent > MAX_EXPONENT) {
+            return Double.NaN;
+        }
+        
+        
+        
+        //Eisel-Lemire
+        final int shift = Long.numberOfLeadingZeros(mantissa);
+        final long w = mantissa << shift;
+        final int index = 2 * (exponent - MIN_EXPONENT);
+        
+        long high = multiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        if((high & 0x1FF) == 0x1FF) {
+            final long secondHigh = multiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if(Long.compareUnsigned(secondHigh, low) > 0) {
+                high++;
+            }
+            if(low == -1 && (exponent < -27 || exponent > 55)) {
+                return Double.NaN;
+            }
+        }
+        
+        final int upper = (int)(high >>> 63);
+        long bits = high >>> (upper + 9);
+        int power = (int)(((152170L + 65536) * exponent) >> 16) + 63
+                + upper - shift + 1023;
+        if(power <= 0) {
+            return Double.NaN;
+        }
+        
+        //Halfway between two doubles: round to even
+        if(Long.compareUnsigned(low, 1) <= 0
+                && exponent >= -4 && exponent <= 23
+                && (bits & 3) == 1
+                && (bits << (upper + 9)) == high) {
+            bits &= ~1L;
+        }
+        
+        bits += bits & 1;
+        bits >>>= 1;
+        if(bits >= (2L << 52)) {
+            bits = 1L << 52;
+            power++;
+        }
+        if(power >= 0x7FF) {
+            return Double.NaN;
+        }
+        
+        return Double.longBitsToDouble((bits & ~(1L << 52))
+                | ((long)power << 52));
+    }
+    
+    /**
+     * Returns the high 64 bits of the unsigned 128 bit product of the given
+     * values.
+     * 
+     * @param x first factor, unsigned
+     * @param y second factor, unsigned
+     * @return high 64 bits of the product
+     */
+    private static long multiplyHigh(long x, long y) {
+        final long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+        final long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+        
+        final long t = x1*y0 + ((x0*y0) >>> 32);
+        final long u = (t & 0xFFFFFFFFL) + x0*y1;
+        return x1*y1 + (t >>> 32) + (u >>> 32);
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Kernels for the built-in elementwise operations.
+ * Every operation has its own loop over the row arrays of the matricies
+ * without any functional interface in between, so the JIT compiler can
+ * unroll and vectorize them (SIMD). Rows that are not stored in an array
+ * fall back to element access.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class Elementwise {
+    
+    /**
+     * Built-in elementwise operations.
+     */
+    enum Operation {
+        /**
+         * Sum of both operands.
+         */
+        ADD,
+        /**
+         * Difference of both operands.
+         */
+        SUBTRACT,
+        /**
+         * Product of the first operand and a scalar factor.
+         */
+        SCALE,
+        /**
+         * Product of both operands.
+         */
+        MULTIPLY,
+        /**
+         * Quotient of both operands.
+         */
+        DIVIDE
+    }
+    
+    
+    
+    /**
+     * Number of elements from which on the rows are processed in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+    /**
+     * Minimum number of elements processed by a single parallel task.
+     */
+    private static final int TASK_SIZE = 1 << 13;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private Elementwise() {}
+    
+    
+    
+    /**
+     * Applies the given operation on every element of <code>a</code> and
+     * <code>b</code> (or the factor) and stores the result in
+     * <code>result</code>.
+     * All three matricies must have the same dimensions, <code>b</code> may
+     * be larger.
+     * 
+     * @param operation operation to apply
+     * @param a first operand
+     * @param b second operand, ignored for {@link Operation#SCALE}
+     * @param factor scalar factor, only used for {@link Operation#SCALE}
+     * @param result matrix to store the result in
+     */
+    static void apply(Operation operation, Matrix a, Matrix b, double factor,
+            Matrix result) {
+        
+        final int height = a.getHeight();
+        final int width = a.getWidth();
+        if(b != null && (b.getHeight() < height || b.getWidth() < width)) {
+            throw new IndexOutOfBoundsException(
+                    "operand is smaller than this matrix");
+        }
+        
+        final MatrixStorage as = a.storage();
+        final MatrixStorage bs = (b != null) ? b.storage() : null;
+        final MatrixStorage rs = result.storage();
+        
+        if((long)height * width < PARALLEL_THRESHOLD || height <= 1) {
+            rows(operation, as, bs, factor, rs, 0, height, width);
+            return;
+        }
+        
+        final int rowsPerTask = Math.max(1, TASK_SIZE / Math.max(1, width));
+        IntStream.range(0, (height + rowsPerTask - 1) / rowsPerTask)
+                .parallel().forEach((task) -> rows(operation,
+                        as, bs, factor, rs, task * rowsPerTask,
+                        Math.min(height, (task + 1) * rowsPerTask), width));
+    }
+    
+    
+    
+    /**
+     * Applies the given operation on every element of the flat single
+     * precision arrays <code>a</code> and <code>b</code> (or the factor) and
+     * stores the result in <code>result</code>.
+     * All three arrays must have the same length.
+     * 
+     * @param operation operation to apply
+     * @param a first operand
+     * @param b second operand, ignored for {@link Operation#SCALE}
+     * @param factor scalar factor, only used for {@link Operation#SCALE}
+     * @param result array to store the result in
+     */
+    static void apply(Operation operation, float[] a, float[] b, float factor,
+            float[] result) {
+        
+        final int length = result.length;
+        final float[] second = (b != null) ? b : a;
+        
+        if(length < PARALLEL_THRESHOLD) {
+            row(operation, a, second, factor, result, 0, length);
+            return;
+        }
+        
+        IntStream.range(0, (length + TASK_SIZE - 1) / TASK_SIZE)
+                .parallel().forEach((task) -> row(operation, a, second,
+                        factor, result, task * TASK_SIZE,
+                        Math.min(length, (task + 1) * TASK_SIZE)));
+    }
+    
+    
+    
+    /**
+     * Applies the given operation on the given rows.
+     * 
+     * @param operation operation to apply
+     * @param a first operand
+     * @param b second operand, may be null for {@link Operation#SCALE}
+     * @param factor scalar factor
+     * @param result storage to store the result in
+     * @param rowFrom first row (inclusive)
+     * @param rowTo last row (exclusive)
+     * @param width number of columns
+     */
+    private static void rows(Operation operation, MatrixStorage a,
+            MatrixStorage b, double factor, MatrixStorage result,
+            int rowFrom, int rowTo, int width) {
+        
+        for(int j=rowFrom; j<rowTo; j++) {
+            final double[] aRow = a.rowArray(j);
+            final double[] bRow = (b != null) ? b.rowArray(j) : aRow;
+            final double[] rRow = result.rowArray(j);
+            
+            if(aRow != null && bRow != null && rRow != null) {
+                row(operation, aRow, a.rowOffset(j),
+                        bRow, (b != null) ? b.rowOffset(j) : 0, factor,
+                        rRow, result.rowOffset(j), width);
+            } else {
+                for(int i=0; i<width; i++) {
+                    result.set(j, i, element(operation, a.get(j, i),
+                            (b != null) ? b.get(j, i) : 0, factor));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Applies the given operation on a single row.
+     * 
+     * @param operation operation to apply
+     * @param a array of the first operand
+     * @param ao index of the first element in the first operand
+     * @param b array of the second operand
+     * @param bo index of the first element in the second operand
+     * @param factor scalar factor
+     * @param r array of the result
+     * @param ro index of the first element in the result
+     * @param length number of elements
+     */
+    private static void row(Operation operation,
+            double[] a, int ao, double[] b, int bo, double factor,
+            double[] r, int ro, int length) {
+        
+        switch(operation) {
+            case ADD:
+                for(int i=0; i<length; i++) {
+                    r[ro + i] = a[ao + i] + b[bo + i];
+                }
+                break;
+            case SUBTRACT:
+                for(int i=0; i<length; i++) {
+                    r[ro + i] = a[ao + i] - b[bo + i];
+                }
+                break;
+            case SCALE:
+                for(int i=0; i<length; i++) {
+                    r[ro + i] = factor * a[ao + i];
+                }
+                break;
+            case MULTIPLY:
+                for(int i=0; i<length; i++) {
+                    r[ro + i] = a[ao + i] * b[bo + i];
+                }
+                break;
+            case DIVIDE:
+                for(int i=0; i<length; i++) {
+                    r[ro + i] = a[ao + i] / b[bo + i];
+                }
+                break;
+            default:
+                throw new AssertionError(operation);
+        }
+    }
+    
+    /**
+     * Applies the given operation on a range of single precision elements.
+     * 
+     * @param operation operation to apply
+     * @param a first operand
+     * @param b second operand
+     * @param factor scalar factor
+     * @param r result
+     * @param from first index (inclusive)
+     * @param to last index (exclusive)
+     */
+    private static void row(Operation operation, float[] a, float[] b,
+            float factor, float[] r, int from, int to) {
+        
+        switch(operation) {
+            case ADD:
+                for(int i=from; i<to; i++) {
+                    r[i] = a[i] + b[i];
+                }
+                break;
+            case SUBTRACT:
+                for(int i=from; i<to; i++) {
+                    r[i] = a[i] - b[i];
+                }
+                break;
+            case SCALE:
+                for(int i=from; i<to; i++) {
+                    r[i] = factor * a[i];
+                }
+                break;
+            case MULTIPLY:
+                for(int i=from; i<to; i++) {
+                    r[i] = a[i] * b[i];
+                }
+                break;
+            case DIVIDE:
+                for(int i=from; i<to; i++) {
+                    r[i] = a[i] / b[i];
+                }
+                break;
+            default:
+                throw new AssertionError(operation);
+        }
+    }
+    
+    /**
+     * Applies the given operation on a single element.
+     * 
+     * @param operation operation to apply
+     * @param a first operand
+     * @param b second operand
+     * @param factor scalar factor
+     * @return result of the operation
+     */
+    private static double element(Operation operation,
+            double a, double b, double factor) {
+        
+        switch(operation) {
+            case ADD:
+                return a + b;
+            case SUBTRACT:
+                return a - b;
+            case SCALE:
+                return factor * a;
+            case MULTIPLY:
+                return a * b;
+            case DIVIDE:
+                return a / b;
+            default:
+                throw new AssertionError(operation);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+
+
+/**
+ * Storage which keeps all elements in a single array in row-major order.
+ * The element at <code>(row, column)</code> is stored at
+ * <code>offset + row*stride + column*columnStride</code>.
+ * Views of blocks or of the transpose only change the offset and strides.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+class FlatStorage extends MatrixStorage {
+    
+    /**
+     * Dimensions of the stored matrix.
+     */
+    private final int height, width;
+    /**
+     * Elements of the matrix.
+     */
+    private final double[] data;
+    /**
+     * Index of the first element and distance between two rows and two
+     * columns in the array.
+     */
+    private final int offset, stride, columnStride;
+    
+    
+    
+    /**
+     * Constructs a new, zero initialized storage with <code>height</code>
+     * rows and <code>width</code> columns.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     */
+    FlatStorage(int height, int width) {
+        this(height, width, new double[Math.multiplyExact(height, width)],
+                0, width);
+    }
+    
+    /**
+     * Constructs a new storage on top of the given array.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param data array containing the elements
+     * @param offset index of the first element
+     * @param stride distance between two rows in the array
+     */
+    FlatStorage(int height, int width, double[] data, int offset, int stride) {
+        this(height, width, data, offset, stride, 1);
+    }
+    
+    /**
+     * Constructs a new storage on top of the given array with the given
+     * distance between two columns.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param data array containing the elements
+     * @param offset index of the first element
+     * @param stride distance between two rows in the array
+     * @param columnStride distance between two columns in the array
+     */
+    FlatStorage(int height, int width, double[] data,
+            int offset, int stride, int columnStride) {
+        this.height = height;
+        this.width = width;
+        this.data = data;
+        this.offset = offset;
+        this.stride = stride;
+        this.columnStride = columnStride;
+    }
+    
+    
+    
+    /**
+     * Returns the index of the specified element in the array.
+     * 
+     * @param row row of the element
+     * @param column column of the element
+     * @return index of the element in the array
+     */
+    private int index(int row, int column) {
+        if(row < 0 || row >= height || column < 0 || column >= width) {
+            throw new IndexOutOfBoundsException(
+                    "(" + row + ", " + column + ")");
+        }
+        
+        return offset + row*stride + column*columnStride;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double get(int row, int column) {
+        return data[index(row, column)];
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void set(int row, int column, double value) {
+        data[index(row, column)] = value;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double[] rowArray(int row) {
+        return (columnStride == 1) ? data : null;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int rowOffset(int row) {
+        return offset + row*stride;
+    }
+    
+    /**
+     * Transposes the elements in the array in place and returns a storage
+     * with swapped dimensions on top of the same array.
+     * Only possible if the elements are stored without gaps in between.
+     * This storage holds the elements in an unspecified order afterwards.
+     * 
+     * @return transposed storage on top of the same array or
+     * <code>null</code> if the elements are not stored without gaps
+     */
+    FlatStorage transposeInPlace() {
+        if(stride != width || columnStride != 1) {
+            return null;
+        }
+        
+        Transpose.transposeFlat(data, offset, height, width);
+        return new FlatStorage(width, height, data, offset, height);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Matrix.Layout getLayout() {
+        return Matrix.Layout.FLAT;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage create(int height, int width) {
+        return new FlatStorage(height, width);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage view(int row, int column, int height, int width) {
+        return new FlatStorage(height, width, data,
+                offset + row*stride + column*columnStride,
+                stride, columnStride);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage transposedView() {
+        return new FlatStorage(width, height, data,
+                offset, columnStride, stride);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object array() {
+        return data;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean sameElements(MatrixStorage other) {
+        if(!(other instanceof FlatStorage)) {
+            return false;
+        }
+        
+        final FlatStorage flat = (FlatStorage)other;
+        return data == flat.data && offset == flat.offset
+                && (stride == flat.stride || height <= 1)
+                && (columnStride == flat.columnStride || width <= 1)
+                && height == flat.height && width == flat.width;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Cache-blocked matrix multiplication kernel for flat single precision
+ * arrays in row-major order.
+ * Bands of rows of the result are calculated in parallel. Within a band the
+ * right factor is traversed in blocks that fit into the caches, and every
+ * element of the left factor is multiplied with a contiguous part of a row
+ * of the right factor and added to the same part of a row of the result, a
+ * loop the JIT compiler vectorizes with twice as many float lanes as double
+ * lanes.
+ * The sums are accumulated either in single precision directly in the
+ * result or in double precision in a buffer, which is rounded once at the
+ * end and reduces the rounding error of long dot products.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class FloatGemm {
+    
+    /**
+     * Dimensions of the blocks the factors are split into.
+     * MC: Number of rows of a band of the result calculated by a task
+     * KC: Number of rows of a block of the right factor
+     * NC: Number of columns of a block of the right factor
+     */
+    static final int MC = 16, KC = 256, NC = 1024;
+    /**
+     * Number of multiply-adds from which on the bands are calculated in
+     * parallel.
+     */
+    private static final long PARALLEL_THRESHOLD = 32*32*32;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private FloatGemm() {}
+    
+    
+    
+    /**
+     * Calculates the product of <code>a</code> and <code>b</code> and writes
+     * it into <code>c</code>, which must be filled with zeros.
+     * 
+     * @param a left factor with <code>height</code> rows and
+     * <code>depth</code> columns
+     * @param b right factor with <code>depth</code> rows and
+     * <code>width</code> columns
+     * @param c result with <code>height</code> rows and <code>width</code>
+     * columns
+     * @param height number of rows of the result
+     * @param depth shared dimension
+     * @param width number of columns of the result
+     * @param accumulateDouble if the sums are accumulated in double
+     * precision
+     */
+    static void multiply(float[] a, float[] b, float[] c,
+            int height, int depth, int width, boolean accumulateDouble) {
+        
+        IntStream bands = IntStream.range(0, (height + MC - 1) / MC);
+        if((long)height * depth * width >= PARALLEL_THRESHOLD) {
+            bands = bands.parallel();
+        }
+        
+        bands.forEach((band) -> {
+            final int rowFrom = band * MC;
+            final int rowTo = Math.min(height, rowFrom + MC);
+            if(accumulateDouble) {
+                bandDouble(a, b, c, rowFrom, rowTo, depth, width);
+            } else {
+                bandFloat(a, b, c, rowFrom, rowTo, depth, width);
+            }
+        });
+    }
+    
+    
+    
+    /**
+     * Calculates a band of rows of the result, accumulating in single
+     * precision.
+     * 
+     * @param a left factor
+     * @param b right factor
+     * @param c result
+     * @param rowFrom first row of the band (inclusive)
+     * @param rowTo last row of the band (exclusive)
+     * @param depth shared dimension
+     * @param width number of columns of the result
+     */
+    private static void bandFloat(float[] a, float[] b, float[] c,
+            int rowFrom, int rowTo, int depth, int width) {
+        
+        for(int jc=0; jc<width; jc+=NC) {
+            final int nc = Math.min(NC, width - jc);
+            for(int pc=0; pc<depth; pc+=KC) {
+                final int pTo = Math.min(depth, pc + KC);
+                
+                for(int i=rowFrom; i<rowTo; i++) {
+                    final int ci = i*width + jc;
+                    final int ai = i*depth;
+                    int p = pc;
+                    //Four rows of the right factor per pass over the result
+                    for(; p+3<pTo; p+=4) {
+                        final float a0 = a[ai + p], a1 = a[ai + p+1];
+                        final float a2 = a[ai + p+2], a3 = a[ai + p+3];
+                        final int b0 = p*width + jc, b1 = b0 + width;
+                        final int b2 = b1 + width, b3 = b2 + width;
+                        for(int j=0; j<nc; j++) {
+                            c[ci + j] += a0*b[b0 + j] + a1*b[b1 + j]
+                                    + a2*b[b2 + j] + a3*b[b3 + j];
+                        }
+                    }
+                    for(; p<pTo; p++) {
+                        final float aip = a[ai + p];
+                        final int bp = p*width + jc;
+                        for(int j=0; j<nc; j++) {
+                            c[ci + j] += aip * b[bp + j];
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Calculates a band of rows of the result, accumulating in double
+     * precision.
+     * 
+     * @param a left factor
+     * @param b right factor
+     * @param c result
+     * @param rowFrom first row of the band (inclusive)
+     * @param rowTo last row of the band (exclusive)
+     * @param depth shared dimension
+     * @param width number of columns of the result
+     */
+    private static void bandDouble(float[] a, float[] b, float[] c,
+            int rowFrom, int rowTo, int depth, int width) {
+        
+        final double[] sums = new double[(rowTo - rowFrom) * NC];
+        
+        for(int jc=0; jc<width; jc+=NC) {
+            final int nc = Math.min(NC, width - jc);
+            Arrays.fill(sums, 0);
+            
+            for(int pc=0; pc<depth; pc+=KC) {
+                final int pTo = Math.min(depth, pc + KC);
+                
+                for(int i=rowFrom; i<rowTo; i++) {
+                    final int si = (i - rowFrom) * NC;
+                    final int ai = i*depth;
+                    int p = pc;
+                    //Four rows of the right factor per pass over the sums
+                    for(; p+3<pTo; p+=4) {
+                        final double a0 = a[ai + p], a1 = a[ai + p+1];
+                        final double a2 = a[ai + p+2], a3 = a[ai + p+3];
+                        final int b0 = p*width + jc, b1 = b0 + width;
+                        final int b2 = b1 + width, b3 = b2 + width;
+                        for(int j=0; j<nc; j++) {
+                            sums[si + j] += a0*b[b0 + j] + a1*b[b1 + j]
+                                    + a2*b[b2 + j] + a3*b[b3 + j];
+                        }
+                    }
+                    for(; p<pTo; p++) {
+                        final double aip = a[ai + p];
+                        final int bp = p*width + jc;
+                        for(int j=0; j<nc; j++) {
+                            sums[si + j] += aip * b[bp + j];
+                        }
+                    }
+                }
+            }
+            
+            for(int i=rowFrom; i<rowTo; i++) {
+                final int si = (i - rowFrom) * NC;
+                final int ci = i*width + jc;
+                for(int j=0; j<nc; j++) {
+                    c[ci + j] = (float)sums[si + j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,835 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleBiFunction;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Single precision variant of {@link Matrix}.
+ * The elements are stored as floats in a single contiguous array in
+ * row-major order, which needs half the memory of a matrix of doubles and
+ * lets the JIT compiler process twice as many elements per SIMD instruction.
+ * The API mirrors the one of {@link Matrix}; the functional interfaces work
+ * with doubles, whose results are rounded to float when they are stored.
+ * 
+ * Matrix multiplication can accumulate the dot products in double precision
+ * (see {@link #multiply(FloatMatrix, boolean)}), which reduces the rounding
+ * error of long dot products while the factors and the result stay in single
+ * precision.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class FloatMatrix {
+    
+    /**
+     * Dimensions of the matrix.
+     * Height: Number of rows
+     * Width: Number of columns
+     */
+    private final int height, width;
+    /**
+     * Elements of the matrix in row-major order.
+     */
+    private final float[] data;
+    
+    
+    
+    /**
+     * Constructs a copy of the given matrix.
+     * 
+     * @param other matrix to copy
+     */
+    public FloatMatrix(FloatMatrix other) {
+        this(other.getHeight(), other.getWidth(), other.data.clone());
+    }
+    
+    /**
+     * Constructs a new matrix with the elements of the given double matrix
+     * rounded to float.
+     * 
+     * @param other matrix to convert
+     */
+    public FloatMatrix(Matrix other) {
+        this(other.getHeight(), other.getWidth());
+        setParallel((j, i) -> other.get(j, i));
+    }
+    
+    /**
+     * Constructs a new matrix with the content of the given array.
+     * 
+     * @param array data to be stored into the matrix
+     */
+    public FloatMatrix(float[][] array) {
+        this(array.length, array[0].length);
+        for(int j=0; j<height; j++) {
+            System.arraycopy(array[j], 0, data, j*width, width);
+        }
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns and fills it with the given value.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param value value to fill the matrix with
+     */
+    public FloatMatrix(int height, int width, float value) {
+        this(height, width);
+        set(value);
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns and fills it with the elements returned from
+     * the given supplier.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param supplier supplier to fill the matrix with values
+     */
+    public FloatMatrix(int height, int width, DoubleSupplier supplier) {
+        this(height, width);
+        set(supplier);
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns and fills the elements with the given
+     * function.
+     * The function receives the row and column indices of the current element
+     * to calculate.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param function function that recieves the indices of the element it
+     * shall calculate
+     */
+    public FloatMatrix(int height, int width,
+            ToDoubleBiFunction<Integer, Integer> function) {
+        this(height, width);
+        set(function);
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns and fills the elements with the given
+     * function.
+     * The function receives the unboxed row and column indices of the current
+     * element to calculate.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param function function that recieves the indices of the element it
+     * shall calculate
+     */
+    public FloatMatrix(int height, int width,
+            IntIntToDoubleFunction function) {
+        this(height, width);
+        set(function);
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns.
+     * All elements are initialized to zero.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     */
+    public FloatMatrix(int height, int width) {
+        this(height, width, new float[Math.multiplyExact(height, width)]);
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns on top of the given array.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param data elements in row-major order
+     */
+    private FloatMatrix(int height, int width, float[] data) {
+        this.height = height;
+        this.width = width;
+        this.data = data;
+    }
+    
+    
+    
+    /**
+     * Returns a new identity matrix with <code>size</code> rows and columns.
+     * 
+     * @param size number of rows and columns
+     * @return identity matrix
+     */
+    public static FloatMatrix identity(int size) {
+        return new FloatMatrix(size, size, (j, i) -> (j == i) ? 1 : 0);
+    }
+    
+    
+    
+    /**
+     * Returns the number of rows.
+     * 
+     * @return number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Returns the number of columns.
+     * 
+     * @return number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Returns the index of the given element in the array.
+     * 
+     * @param row row of the element
+     * @param column column of the element
+     * @return index of the element in the array
+     */
+    private int index(int row, int column) {
+        if(row < 0 || row >= height || column < 0 || column >= width) {
+            throw new IndexOutOfBoundsException(
+                    "(" + row + ", " + column + ")");
+        }
+        
+        return row*width + column;
+    }
+    
+    /**
+     * Returns the element at the specified position.
+     * 
+     * @param row row of the element to return
+     * @param column column of the element to return
+     * @return the element at the specified position
+     */
+    public float get(int row, int column) {
+        return data[index(row, column)];
+    }
+    
+    /**
+     * Replaces the element at the specified position with the specified
+     * element.
+     * 
+     * @param row row of the element to set
+     * @param column column of the element to set
+     * @param value element to be stored at the specified position
+     * @return element previously at the specified position
+     */
+    public float set(int row, int column, float value) {
+        final int index = index(row, column);
+        final float oldElement = data[index];
+        data[index] = value;
+        return oldElement;
+    }
+    
+    /**
+     * Replaces all elements of the matrix with the specified elements.
+     * 
+     * @param value element to replace all elements
+     */
+    public void set(float value) {
+        Arrays.fill(data, value);
+    }
+    
+    /**
+     * Replaces all elements with the values returned from the given supplier.
+     * The elements of the matrix are filled into the matrix column-row vise.
+     * 
+     * @param supplier supplier to supply new values for all elements
+     */
+    public void set(DoubleSupplier supplier) {
+        for(int k=0; k<data.length; k++) {
+            data[k] = (float)supplier.getAsDouble();
+        }
+    }
+    
+    /**
+     * Replaces all elements with the values returned from the given function.
+     * It recieves the position (row and column indices) of the element to
+     * replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void set(ToDoubleBiFunction<Integer, Integer> function) {
+        set((IntIntToDoubleFunction)function::applyAsDouble);
+    }
+    
+    /**
+     * Replaces all elements with the values returned from the given function.
+     * It recieves the unboxed position (row and column indices) of the
+     * element to replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void set(IntIntToDoubleFunction function) {
+        forEachIndices((j, i) ->
+                data[j*width + i] = (float)function.applyAsDouble(j, i));
+    }
+    
+    /**
+     * Replaces all elements with the values of the given matrix.
+     * 
+     * @param other other matrix to get values from
+     * @throws ArithmeticException if the dimensions don't agree
+     */
+    public void set(FloatMatrix other) {
+        checkDimensions(other);
+        System.arraycopy(other.data, 0, data, 0, data.length);
+    }
+    
+    /**
+     * Replaces all elements with the values returned from the given function
+     * in parallel.
+     * It recieves the position (row and column indices) of the element to
+     * replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void setParallel(ToDoubleBiFunction<Integer, Integer> function) {
+        setParallel((IntIntToDoubleFunction)function::applyAsDouble);
+    }
+    
+    /**
+     * Replaces all elements with the values returned from the given function
+     * in parallel.
+     * It recieves the unboxed position (row and column indices) of the
+     * element to replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void setParallel(IntIntToDoubleFunction function) {
+        forEachIndicesParallel((j, i) ->
+                data[j*width + i] = (float)function.applyAsDouble(j, i));
+    }
+    
+    
+    
+    /**
+     * Adds the given matrix to this matrix elementwise and returns the result.
+     * 
+     * @param operand other summand
+     * @return sum
+     * @throws ArithmeticException if the dimensions don't agree
+     */
+    public FloatMatrix add(FloatMatrix operand) {
+        return elementwise(Elementwise.Operation.ADD, operand, 0);
+    }
+    
+    /**
+     * Subtracts the given matrix from this matrix elementwise and returns the
+     * result.
+     * 
+     * @param operand subtrahend
+     * @return difference
+     * @throws ArithmeticException if the dimensions don't agree
+     */
+    public FloatMatrix subtract(FloatMatrix operand) {
+        return elementwise(Elementwise.Operation.SUBTRACT, operand, 0);
+    }
+    
+    /**
+     * Multiplies every element of this matrix with the given value and returns
+     * the result.
+     * Scalar multiplication.
+     * 
+     * @param factor scalar factor
+     * @return product
+     */
+    public FloatMatrix multiply(float factor) {
+        return elementwise(Elementwise.Operation.SCALE, null, factor);
+    }
+    
+    /**
+     * Matrix multiplies this matrix with the given matrix and returns the
+     * result.
+     * The dot products are accumulated in single precision.
+     * 
+     * @param operand second factor
+     * @return product
+     * @throws ArithmeticException if the width of this matrix doesn't match
+     * the height of the operand
+     * @see #multiply(FloatMatrix, boolean)
+     */
+    public FloatMatrix multiply(FloatMatrix operand) {
+        return multiply(operand, false);
+    }
+    
+    /**
+     * Matrix multiplies this matrix with the given matrix and returns the
+     * result.
+     * The product is calculated in parallel by a cache-blocked kernel.
+     * Accumulating in double precision is slower, but the error of a dot
+     * product of length n grows with n times the double instead of the float
+     * rounding error, before the result is rounded to float once.
+     * 
+     * @param operand second factor
+     * @param accumulateDouble if the dot products are accumulated in double
+     * precision
+     * @return product
+     * @throws ArithmeticException if the width of this matrix doesn't match
+     * the height of the operand
+     */
+    public FloatMatrix multiply(FloatMatrix operand, boolean accumulateDouble) {
+        if(getWidth() != operand.getHeight()) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        
+        final FloatMatrix result =
+                new FloatMatrix(getHeight(), operand.getWidth());
+        FloatGemm.multiply(data, operand.data, result.data,
+                getHeight(), getWidth(), operand.getWidth(),
+                accumulateDouble);
+        
+        return result;
+    }
+    
+    /**
+     * Multiplies this matrix with the given matrix elementwise and returns the
+     * result.
+     * 
+     * @param operand factor
+     * @return product
+     * @throws ArithmeticException if the dimensions don't agree
+     */
+    public FloatMatrix multiplyElementwise(FloatMatrix operand) {
+        return elementwise(Elementwise.Operation.MULTIPLY, operand, 0);
+    }
+    
+    /**
+     * Divides this matrix by the given matrix elementwise and returns the
+     * result.
+     * 
+     * @param operand divisor
+     * @return quotient
+     * @throws ArithmeticException if the dimensions don't agree
+     */
+    public FloatMatrix divideElementwise(FloatMatrix operand) {
+        return elementwise(Elementwise.Operation.DIVIDE, operand, 0);
+    }
+    
+    /**
+     * Applies one of the built-in elementwise operations on this matrix and
+     * returns the result.
+     * 
+     * @param operation operation to apply
+     * @param operand second operand, null for scalar operations
+     * @param factor scalar factor
+     * @return result of the operation
+     * @throws ArithmeticException if the dimensions don't agree
+     */
+    private FloatMatrix elementwise(Elementwise.Operation operation,
+            FloatMatrix operand, float factor) {
+        if(operand != null) {
+            checkDimensions(operand);
+        }
+        
+        final FloatMatrix result = new FloatMatrix(getHeight(), getWidth());
+        Elementwise.apply(operation, data,
+                (operand != null) ? operand.data : null, factor, result.data);
+        
+        return result;
+    }
+    
+    /**
+     * Throws an exception if the given matrix has other dimensions than this
+     * matrix.
+     * 
+     * @param other matrix to check
+     * @throws ArithmeticException if the dimensions don't agree
+     */
+    private void checkDimensions(FloatMatrix other) {
+        if(other.getHeight() != getHeight() || other.getWidth() != getWidth()) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+    }
+    
+    /**
+     * Returns the transpose of this matrix.
+     * The transpose is calculated tile by tile, so both matricies are
+     * accessed cache friendly.
+     * 
+     * @return transpose of this matrix.
+     */
+    public FloatMatrix transpose() {
+        final FloatMatrix result = new FloatMatrix(getWidth(), getHeight());
+        Transpose.transpose(data, result.data, getHeight(), getWidth());
+        
+        return result;
+    }
+    
+    
+    /**
+     * Applies the given operator on every element of this matrix.
+     * 
+     * @param operator operator to apply on every element of this matrix
+     */
+    public void apply(DoubleUnaryOperator operator) {
+        for(int k=0; k<data.length; k++) {
+            data[k] = (float)operator.applyAsDouble(data[k]);
+        }
+    }
+    
+    /**
+     * Applies the given operator elementwise on every element of this matrix
+     * and the given one.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of this matrix
+     */
+    public void apply(FloatMatrix operand, DoubleBinaryOperator operator) {
+        set((j, i) -> operator.applyAsDouble(get(j, i), operand.get(j, i)));
+    }
+    
+    /**
+     * Applies the given operator on every element of this matrix and the given
+     * matrix elementwise wrapping around.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of the matrix
+     */
+    public void applyDifSize(FloatMatrix operand,
+            DoubleBinaryOperator operator) {
+        set((j, i) -> operator.applyAsDouble(
+                get(j, i),
+                operand.get(j % operand.getHeight(), i % operand.getWidth())));
+    }
+    
+    /**
+     * Applies the given operator on every element of this matrix and returns
+     * the result.
+     * 
+     * @param operator operator to apply on every element of this matrix
+     * @return result of the operation
+     */
+    public FloatMatrix applyNew(DoubleUnaryOperator operator) {
+        final FloatMatrix newMatrix = new FloatMatrix(this);
+        newMatrix.apply(operator);
+        
+        return newMatrix;
+    }
+    
+    /**
+     * Applies the given operator elementwise on every element of this matrix
+     * and the given one and returns the result.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of the matricies
+     * @return result of the operation
+     */
+    public FloatMatrix applyNew(FloatMatrix operand,
+            DoubleBinaryOperator operator) {
+        
+        final FloatMatrix newMatrix = new FloatMatrix(getHeight(), getWidth());
+        newMatrix.set((j, i) ->
+                operator.applyAsDouble(get(j, i), operand.get(j, i)));
+        
+        return newMatrix;
+    }
+    
+    /**
+     * Applies the given operator on every element of this matrix and the given
+     * matrix elementwise wrapping around and returns the result.
+     * The result has as many rows and the matrix with more rows and as many
+     * columns as the matrix with more columns.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of the matricies
+     * @return result of the operation
+     */
+    public FloatMatrix applyNewDifSize(FloatMatrix operand,
+            DoubleBinaryOperator operator) {
+        
+        final FloatMatrix newMatrix = new FloatMatrix(
+                Math.max(getHeight(), operand.getHeight()),
+                Math.max(getWidth(), operand.getWidth()));
+        
+        newMatrix.set((j, i) -> {
+            final double value1 = get(j % getHeight(), i % getWidth());
+            final double value2 = operand.get(
+                    j % operand.getHeight(), i % operand.getWidth());
+            return operator.applyAsDouble(value1, value2);
+        });
+        
+        return newMatrix;
+    }
+    
+    
+    /**
+     * Applies the given operator on every element of this matrix in parallel.
+     * 
+     * @param operator operator to apply on every element of this matrix
+     */
+    public void applyParallel(DoubleUnaryOperator operator) {
+        setParallel((j, i) -> operator.applyAsDouble(get(j, i)));
+    }
+    
+    /**
+     * Applies the given operator elementwise on every element of this matrix
+     * and the given one in parallel.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of this matrix
+     */
+    public void applyParallel(FloatMatrix operand,
+            DoubleBinaryOperator operator) {
+        setParallel((j, i) ->
+                operator.applyAsDouble(get(j, i), operand.get(j, i)));
+    }
+    
+    /**
+     * Applies the given operator on every element of this matrix and the given
+     * matrix in parallel elementwise wrapping around.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of the matrix
+     */
+    public void applyDifSizeParallel(FloatMatrix operand,
+            DoubleBinaryOperator operator) {
+        
+        setParallel((j, i) -> operator.applyAsDouble(
+                get(j, i),
+                operand.get(j % operand.getHeight(), i % operand.getWidth())));
+    }
+    
+    /**
+     * Applies the given operator on every element of this matrix in parallel
+     * and returns the result.
+     * 
+     * @param operator operator to apply on every element of this matrix
+     * @return result of the operation
+     */
+    public FloatMatrix applyNewParallel(DoubleUnaryOperator operator) {
+        final FloatMatrix newMatrix = new FloatMatrix(getHeight(), getWidth());
+        newMatrix.setParallel((j, i) -> operator.applyAsDouble(get(j, i)));
+        
+        return newMatrix;
+    }
+    
+    /**
+     * Applies the given operator elementwise on every element of this matrix
+     * and the given one in parallel and returns the result.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of the matricies
+     * @return result of the operation
+     */
+    public FloatMatrix applyNewParallel(FloatMatrix operand,
+            DoubleBinaryOperator operator) {
+        
+        final FloatMatrix newMatrix = new FloatMatrix(getHeight(), getWidth());
+        newMatrix.setParallel((j, i) ->
+                operator.applyAsDouble(get(j, i), operand.get(j, i)));
+        
+        return newMatrix;
+    }
+    
+    /**
+     * Applies the given operator on every element of this matrix and the given
+     * matrix in parallel elementwise wrapping around and returns the result.
+     * The result has as many rows and the matrix with more rows and as many
+     * columns as the matrix with more columns.
+     * 
+     * @param operand second operand
+     * @param operator operator to apply on every element of the matricies
+     * @return result of the operation
+     */
+    public FloatMatrix applyNewDifSizeParallel(FloatMatrix operand,
+            DoubleBinaryOperator operator) {
+        
+        final FloatMatrix newMatrix = new FloatMatrix(
+                Math.max(getHeight(), operand.getHeight()),
+                Math.max(getWidth(), operand.getWidth()));
+        
+        newMatrix.setParallel((j, i) -> {
+            final double value1 = get(j % getHeight(), i % getWidth());
+            final double value2 = operand.get(
+                    j % operand.getHeight(), i % operand.getWidth());
+            return operator.applyAsDouble(value1, value2);
+        });
+        
+        return newMatrix;
+    }
+    
+    
+    
+    /**
+     * Performs the given action for each element in parallel.
+     * 
+     * @param action action to be performed for each element
+     */
+    public void forEachParallel(DoubleConsumer action) {
+        forEachIndicesParallel((j, i) -> action.accept(get(j, i)));
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix
+     * row by row.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndices(BiConsumer<Integer, Integer> consumer) {
+        forEachIndices((IntIntConsumer)consumer::accept);
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix
+     * row by row.
+     * The indices are passed unboxed.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndices(IntIntConsumer consumer) {
+        for(int j=0; j<getHeight(); j++) {
+            for(int i=0; i<getWidth(); i++) {
+                consumer.accept(j, i);
+            }
+        }
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix in
+     * parallel.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndicesParallel(BiConsumer<Integer, Integer> consumer) {
+        forEachIndicesParallel((IntIntConsumer)consumer::accept);
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix in
+     * parallel.
+     * The rows are processed in parallel, the elements of a row one after
+     * another. The indices are passed unboxed.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndicesParallel(IntIntConsumer consumer) {
+        IntStream.range(0, getHeight()).parallel().forEach((j) -> {
+            for(int i=0; i<getWidth(); i++) {
+                consumer.accept(j, i);
+            }
+        });
+    }
+    
+    
+    /**
+     * Generates a BufferedImage by mapping the content of this matrix to the
+     * pixels of the image with the given colormap.
+     * 
+     * @param colorMap function that maps values of the matrix to colours
+     * @return image mapped with the content of this matrix
+     */
+    public BufferedImage toImage(DoubleFunction<Color> colorMap) {
+        final BufferedImage image = new BufferedImage(getWidth(), getHeight(),
+                BufferedImage.TYPE_INT_RGB);
+        
+        forEachIndices((j, i) -> {
+            final double value = get(j, i);
+            final Color color = colorMap.apply(value);
+            
+            image.setRGB(i, j, color.getRGB());
+        });
+        
+        return image;
+    }
+    
+    /**
+     * Returns a double precision copy of this matrix.
+     * 
+     * @return copy of this matrix with double elements
+     */
+    public Matrix toMatrix() {
+        return toMatrix(Matrix.Layout.NESTED);
+    }
+    
+    /**
+     * Returns a double precision copy of this matrix with the given layout.
+     * 
+     * @param layout layout of the copy
+     * @return copy of this matrix with double elements
+     */
+    public Matrix toMatrix(Matrix.Layout layout) {
+        final Matrix matrix = new Matrix(getHeight(), getWidth(), layout);
+        matrix.setParallel((j, i) -> data[j*width + i]);
+        
+        return matrix;
+    }
+    
+    /**
+     * Returns a copy of this matrix in 2 dimensional array form
+     * 
+     * @return copy of this matrix in 2 dimensional array form
+     */
+    public float[][] toArray() {
+        final float[][] array = new float[getHeight()][];
+        for(int j=0; j<getHeight(); j++) {
+            array[j] = Arrays.copyOfRange(data, j*width, (j+1)*width);
+        }
+        
+        return array;
+    }
+    
+    /**
+     * Returns a string representation of the contents of this matrix.
+     * 
+     * @return string representation of the contents of this matrix
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        
+        for(float[] array : toArray()) {
+            builder.append(Arrays.toString(array)).append('\n');
+        }
+        
+        return builder.toString();
+    }
+}
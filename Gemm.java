@@ -0,0 +1,509 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+
+/**
+ * Cache-blocked matrix multiplication kernel.
+ * The product is calculated in blocks that fit into the caches: a panel of
+ * the right factor is packed into a contiguous buffer, then blocks of the
+ * left factor are packed and multiplied with it by a micro-kernel, which
+ * keeps a small tile of the result in local variables.
+ * 
+ * Rows of the factors and the result that are not stored in arrays are
+ * accessed element by element.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class Gemm {
+    
+    /**
+     * Dimensions of the tile of the result calculated by the micro-kernel.
+     * MR: Number of rows
+     * NR: Number of columns
+     */
+    static final int MR = 4, NR = 4;
+    /**
+     * Dimensions of the blocks the factors are split into.
+     * MC: Number of rows of a block of the left factor (L2 cache)
+     * KC: Shared dimension of a block (L1 cache for a packed sliver)
+     * NC: Number of columns of a panel of the right factor (L3 cache)
+     */
+    static final int MC = 64, KC = 256, NC = 4096;
+    /**
+     * Number of multiply-adds up to which the simple row-wise algorithm is
+     * used because the packing doesn't pay off.
+     */
+    private static final long SMALL = 32*32*32;
+    /**
+     * Minimum number of columns of a block calculated by a single task, so
+     * the packing of the panels of the right factor is amortized.
+     */
+    private static final int MIN_TASK_WIDTH = 256;
+    /**
+     * Number of tasks per core the result is split into for load balancing.
+     */
+    private static final int TASKS_PER_CORE = 4;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private Gemm() {}
+    
+    
+    
+    /**
+     * Task which calculates a block of the result.
+     * Blocks larger than the threshold are split in halves along their
+     * longer side, the halves are aligned to the block sizes of the kernel.
+     */
+    private static class MultiplyTask extends RecursiveAction {
+        
+        /**
+         * Serialization version, required by the serializable superclass.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Factors and result.
+         */
+        private final Matrix a, b, c;
+        /**
+         * Block of the result to calculate.
+         */
+        private final int rowFrom, rowTo, columnFrom, columnTo;
+        /**
+         * Number of elements up to which a block is not split any further.
+         */
+        private final long threshold;
+        
+        
+        
+        /**
+         * Constructs a new task which calculates the given block.
+         * 
+         * @param a left factor
+         * @param b right factor
+         * @param c matrix to add the product to
+         * @param rowFrom first row of the block (inclusive)
+         * @param rowTo last row of the block (exclusive)
+         * @param columnFrom first column of the block (inclusive)
+         * @param columnTo last column of the block (exclusive)
+         * @param threshold number of elements up to which the block is not
+         * split any further
+         */
+        MultiplyTask(Matrix a, Matrix b, Matrix c,
+                int rowFrom, int rowTo, int columnFrom, int columnTo,
+                long threshold) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.columnFrom = columnFrom;
+            this.columnTo = columnTo;
+            this.threshold = threshold;
+        }
+        
+        
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+            final int height = rowTo - rowFrom;
+            final int width = columnTo - columnFrom;
+            final boolean splitRows = height > MC;
+            final boolean splitColumns = width >= 2*MIN_TASK_WIDTH;
+            
+            if((long)height * width <= threshold
+                    || (!splitRows && !splitColumns)) {
+                multiply(a, b, c, rowFrom, rowTo, columnFrom, columnTo);
+                return;
+            }
+            
+            if(splitRows && (!splitColumns || height >= width)) {
+                final int middle =
+                        rowFrom + roundUp((height + 1) / 2, MC);
+                invokeAll(
+                        new MultiplyTask(a, b, c, rowFrom, middle,
+                                columnFrom, columnTo, threshold),
+                        new MultiplyTask(a, b, c, middle, rowTo,
+                                columnFrom, columnTo, threshold));
+            } else {
+                final int middle =
+                        columnFrom + roundUp((width + 1) / 2, NR);
+                invokeAll(
+                        new MultiplyTask(a, b, c, rowFrom, rowTo,
+                                columnFrom, middle, threshold),
+                        new MultiplyTask(a, b, c, rowFrom, rowTo,
+                                middle, columnTo, threshold));
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Calculates the matrix product of <code>a</code> and <code>b</code>
+     * and adds it to <code>c</code>.
+     * The result is split into a few blocks per core which are calculated
+     * by fork/join tasks.
+     * 
+     * @param a left factor
+     * @param b right factor
+     * @param c matrix to add the product to
+     */
+    static void multiplyParallel(Matrix a, Matrix b, Matrix c) {
+        final int height = a.getHeight();
+        final int width = b.getWidth();
+        final int depth = Math.min(a.getWidth(), b.getHeight());
+        final int cores = ForkJoinPool.getCommonPoolParallelism();
+        
+        if(cores <= 1 || (long)height * width * depth <= SMALL) {
+            multiply(a, b, c, 0, height, 0, width);
+            return;
+        }
+        
+        final long threshold = Math.max(
+                (long)height * width / (cores * TASKS_PER_CORE),
+                (long)MC * MIN_TASK_WIDTH);
+        
+        ForkJoinPool.commonPool().invoke(new MultiplyTask(a, b, c,
+                0, height, 0, width, threshold));
+    }
+    
+    /**
+     * Calculates the product of the given rows of <code>a</code> and the
+     * given columns of <code>b</code> and adds it to the corresponding
+     * block of <code>c</code>.
+     * If the width of <code>a</code> and the height of <code>b</code> differ,
+     * the smaller one is used as shared dimension.
+     * 
+     * @param a left factor
+     * @param b right factor
+     * @param c matrix to add the product to
+     * @param rowFrom first row of the block (inclusive)
+     * @param rowTo last row of the block (exclusive)
+     * @param columnFrom first column of the block (inclusive)
+     * @param columnTo last column of the block (exclusive)
+     */
+    static void multiply(Matrix a, Matrix b, Matrix c,
+            int rowFrom, int rowTo, int columnFrom, int columnTo) {
+        
+        final int height = rowTo - rowFrom;
+        final int width = columnTo - columnFrom;
+        final int depth = Math.min(a.getWidth(), b.getHeight());
+        if(height <= 0 || width <= 0 || depth <= 0) {
+            return;
+        }
+        
+        if((long)height * width * depth <= SMALL) {
+            multiplySmall(a.storage(), b.storage(), c.storage(), depth,
+                    rowFrom, rowTo, columnFrom, columnTo);
+            return;
+        }
+        
+        
+        
+        final double[] packedA = new double[
+                roundUp(Math.min(MC, height), MR) * Math.min(KC, depth)];
+        final double[] packedB = new double[
+                roundUp(Math.min(NC, width), NR) * Math.min(KC, depth)];
+        final double[] scratch = new double[Math.min(NC, width)];
+        
+        for(int jc=columnFrom; jc<columnTo; jc+=NC) {
+            final int nc = Math.min(NC, columnTo - jc);
+            
+            for(int pc=0; pc<depth; pc+=KC) {
+                final int kc = Math.min(KC, depth - pc);
+                packB(b.storage(), pc, kc, jc, nc, packedB, scratch);
+                
+                for(int ic=rowFrom; ic<rowTo; ic+=MC) {
+                    final int mc = Math.min(MC, rowTo - ic);
+                    packA(a.storage(), ic, mc, pc, kc, packedA);
+                    
+                    for(int jr=0; jr<nc; jr+=NR) {
+                        final int nr = Math.min(NR, nc - jr);
+                        for(int ir=0; ir<mc; ir+=MR) {
+                            final int mr = Math.min(MR, mc - ir);
+                            microKernel(kc, packedA, ir * kc, packedB, jr * kc,
+                                    c.storage(), ic + ir, jc + jr, mr, nr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Rounds the given value up to the next multiple of the given step.
+     * 
+     * @param value value to round
+     * @param step step to round to
+     * @return smallest multiple of step that is not smaller than value
+     */
+    private static int roundUp(int value, int step) {
+        return (value + step - 1) / step * step;
+    }
+    
+    /**
+     * Packs a block of the left factor into slivers of MR rows.
+     * Within a sliver the elements are stored column by column, missing rows
+     * at the bottom edge are filled with zeros.
+     * 
+     * @param a left factor
+     * @param ic first row of the block
+     * @param mc number of rows of the block
+     * @param pc first column of the block
+     * @param kc number of columns of the block
+     * @param packed buffer to pack the block into
+     */
+    private static void packA(MatrixStorage a, int ic, int mc, int pc, int kc,
+            double[] packed) {
+        
+        for(int r=0; r<roundUp(mc, MR); r++) {
+            final int base = (r / MR) * MR * kc + r % MR;
+            
+            if(r >= mc) {
+                for(int p=0; p<kc; p++) {
+                    packed[base + p*MR] = 0;
+                }
+                continue;
+            }
+            
+            final double[] row = a.rowArray(ic + r);
+            if(row != null) {
+                final int offset = a.rowOffset(ic + r) + pc;
+                for(int p=0; p<kc; p++) {
+                    packed[base + p*MR] = row[offset + p];
+                }
+            } else {
+                for(int p=0; p<kc; p++) {
+                    packed[base + p*MR] = a.get(ic + r, pc + p);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Packs a panel of the right factor into slivers of NR columns.
+     * Within a sliver the elements are stored row by row, missing columns
+     * at the right edge are filled with zeros.
+     * 
+     * @param b right factor
+     * @param pc first row of the panel
+     * @param kc number of rows of the panel
+     * @param jc first column of the panel
+     * @param nc number of columns of the panel
+     * @param packed buffer to pack the panel into
+     * @param scratch buffer of at least nc elements for rows that are not
+     * stored in an array
+     */
+    private static void packB(MatrixStorage b, int pc, int kc, int jc, int nc,
+            double[] packed, double[] scratch) {
+        
+        for(int p=0; p<kc; p++) {
+            double[] row = b.rowArray(pc + p);
+            int offset;
+            if(row != null) {
+                offset = b.rowOffset(pc + p) + jc;
+            } else {
+                for(int i=0; i<nc; i++) {
+                    scratch[i] = b.get(pc + p, jc + i);
+                }
+                row = scratch;
+                offset = 0;
+            }
+            
+            for(int jr=0; jr<nc; jr+=NR) {
+                final int base = jr*kc + p*NR;
+                for(int c=0; c<NR; c++) {
+                    packed[base + c] = (jr + c < nc) ? row[offset + jr + c] : 0;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Multiplies a packed sliver of the left factor with a packed sliver of
+     * the right factor and adds the resulting MRxNR tile to the result.
+     * 
+     * @param kc shared dimension of the slivers
+     * @param a packed left factor
+     * @param ai index of the sliver in the packed left factor
+     * @param b packed right factor
+     * @param bi index of the sliver in the packed right factor
+     * @param c result
+     * @param row first row of the tile in the result
+     * @param column first column of the tile in the result
+     * @param mr number of valid rows of the tile
+     * @param nr number of valid columns of the tile
+     */
+    private static void microKernel(int kc, double[] a, int ai,
+            double[] b, int bi, MatrixStorage c, int row, int column,
+            int mr, int nr) {
+        
+        double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        
+        for(int p=0; p<kc; p++) {
+            final double a0 = a[ai], a1 = a[ai+1], a2 = a[ai+2], a3 = a[ai+3];
+            final double b0 = b[bi], b1 = b[bi+1], b2 = b[bi+2], b3 = b[bi+3];
+            
+            c00 += a0*b0; c01 += a0*b1; c02 += a0*b2; c03 += a0*b3;
+            c10 += a1*b0; c11 += a1*b1; c12 += a1*b2; c13 += a1*b3;
+            c20 += a2*b0; c21 += a2*b1; c22 += a2*b2; c23 += a2*b3;
+            c30 += a3*b0; c31 += a3*b1; c32 += a3*b2; c33 += a3*b3;
+            
+            ai += MR;
+            bi += NR;
+        }
+        
+        
+        
+        if(mr == MR && nr == NR) {
+            addRow(c, row,   column, c00, c01, c02, c03);
+            addRow(c, row+1, column, c10, c11, c12, c13);
+            addRow(c, row+2, column, c20, c21, c22, c23);
+            addRow(c, row+3, column, c30, c31, c32, c33);
+        } else {
+            final double[] tile = {
+                c00, c01, c02, c03,
+                c10, c11, c12, c13,
+                c20, c21, c22, c23,
+                c30, c31, c32, c33};
+            
+            for(int r=0; r<mr; r++) {
+                final double[] array = c.rowArray(row + r);
+                final int offset = c.rowOffset(row + r) + column;
+                for(int i=0; i<nr; i++) {
+                    if(array != null) {
+                        array[offset + i] += tile[r*NR + i];
+                    } else {
+                        c.set(row + r, column + i,
+                                c.get(row + r, column + i) + tile[r*NR + i]);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Adds four consecutive values to a row of the result.
+     * 
+     * @param c result
+     * @param row row to add the values to
+     * @param column first column to add the values to
+     * @param v0 value to add to the first column
+     * @param v1 value to add to the second column
+     * @param v2 value to add to the third column
+     * @param v3 value to add to the fourth column
+     */
+    private static void addRow(MatrixStorage c, int row, int column,
+            double v0, double v1, double v2, double v3) {
+        
+        final double[] array = c.rowArray(row);
+        if(array == null) {
+            c.set(row, column, c.get(row, column) + v0);
+            c.set(row, column+1, c.get(row, column+1) + v1);
+            c.set(row, column+2, c.get(row, column+2) + v2);
+            c.set(row, column+3, c.get(row, column+3) + v3);
+            return;
+        }
+        
+        final int offset = c.rowOffset(row) + column;
+        array[offset] += v0;
+        array[offset+1] += v1;
+        array[offset+2] += v2;
+        array[offset+3] += v3;
+    }
+    
+    /**
+     * Simple row-wise multiplication for small blocks.
+     * Every row of the result is accumulated from the rows of the right
+     * factor, so all accesses are contiguous.
+     * 
+     * @param a left factor
+     * @param b right factor
+     * @param c matrix to add the product to
+     * @param depth shared dimension
+     * @param rowFrom first row of the block (inclusive)
+     * @param rowTo last row of the block (exclusive)
+     * @param columnFrom first column of the block (inclusive)
+     * @param columnTo last column of the block (exclusive)
+     */
+    private static void multiplySmall(MatrixStorage a, MatrixStorage b,
+            MatrixStorage c, int depth,
+            int rowFrom, int rowTo, int columnFrom, int columnTo) {
+        
+        for(int j=rowFrom; j<rowTo; j++) {
+            final double[] cRow = c.rowArray(j);
+            final int cOffset = c.rowOffset(j);
+            
+            if(cRow == null) {
+                for(int i=columnFrom; i<columnTo; i++) {
+                    double sum = c.get(j, i);
+                    for(int k=0; k<depth; k++) {
+                        sum += a.get(j, k) * b.get(k, i);
+                    }
+                    c.set(j, i, sum);
+                }
+                continue;
+            }
+            
+            for(int k=0; k<depth; k++) {
+                final double factor = a.get(j, k);
+                final double[] bRow = b.rowArray(k);
+                
+                if(bRow != null) {
+                    final int bOffset = b.rowOffset(k);
+                    for(int i=columnFrom; i<columnTo; i++) {
+                        cRow[cOffset + i] += factor * bRow[bOffset + i];
+                    }
+                } else {
+                    for(int i=columnFrom; i<columnTo; i++) {
+                        cRow[cOffset + i] += factor * b.get(k, i);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Matrix-vector multiplication kernel.
+ * Every element of the result is the dot product of a row of the matrix with
+ * the vector, both are read contiguously. Large matricies are split into
+ * blocks of rows which are processed in parallel.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class Gemv {
+    
+    /**
+     * Number of elements of the matrix from which on the rows are processed
+     * in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /**
+     * Minimum number of elements processed by a single parallel task.
+     */
+    private static final int MIN_TASK_SIZE = 1 << 14;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private Gemv() {}
+    
+    
+    
+    /**
+     * Multiplies the matrix <code>a</code> with the vector <code>x</code> and
+     * writes the result into <code>y</code>.
+     * 
+     * @param a matrix
+     * @param x vector to multiply with, at least as long as the width
+     * @param y array to write the result into, at least as long as the
+     * height, must not be <code>x</code>
+     */
+    static void multiply(Matrix a, double[] x, double[] y) {
+        final int height = a.getHeight();
+        final long size = (long)height * a.getWidth();
+        
+        if(size < PARALLEL_THRESHOLD) {
+            multiply(a, x, y, 0, height);
+        } else {
+            final int rowsPerTask = Math.min(height,
+                    Math.max(1, MIN_TASK_SIZE / Math.max(1, a.getWidth())));
+            final int tasks = (height + rowsPerTask - 1) / rowsPerTask;
+            
+            IntStream.range(0, tasks).parallel().forEach((k) ->
+                    multiply(a, x, y, k * rowsPerTask,
+                            Math.min(height, (k + 1) * rowsPerTask)));
+        }
+    }
+    
+    /**
+     * Multiplies the given rows of the matrix <code>a</code> with the vector
+     * <code>x</code> and writes the result into <code>y</code>.
+     * 
+     * @param a matrix
+     * @param x vector to multiply with
+     * @param y array to write the result into
+     * @param rowFrom first row (inclusive)
+     * @param rowTo last row (exclusive)
+     */
+    private static void multiply(Matrix a, double[] x, double[] y,
+            int rowFrom, int rowTo) {
+        final MatrixStorage storage = a.storage();
+        final int width = a.getWidth();
+        
+        for(int j=rowFrom; j<rowTo; j++) {
+            final double[] row = storage.rowArray(j);
+            
+            if(row != null) {
+                y[j] = dot(row, storage.rowOffset(j), x, width);
+            } else {
+                double sum = 0;
+                for(int i=0; i<width; i++) {
+                    sum += storage.get(j, i) * x[i];
+                }
+                y[j] = sum;
+            }
+        }
+    }
+    
+    /**
+     * Returns the dot product of <code>length</code> elements of
+     * <code>a</code> starting at <code>offset</code> and the first elements
+     * of <code>x</code>.
+     * 
+     * @param a first factor
+     * @param offset index of the first element of <code>a</code>
+     * @param x second factor
+     * @param length number of elements
+     * @return dot product
+     */
+    static double dot(double[] a, int offset, double[] x, int length) {
+        double sum = 0;
+        for(int i=0; i<length; i++) {
+            sum += a[offset + i] * x[i];
+        }
+        
+        return sum;
+    }
+}
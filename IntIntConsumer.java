@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.function.BiConsumer;
+
+
+
+/**
+ * Operation that accepts the row and column index of an element and returns
+ * no result.
+ * Primitive specialization of {@link BiConsumer} which doesn't box the
+ * indices. It extends the boxed interface, so it can be used everywhere a
+ * <code>BiConsumer&lt;Integer, Integer&gt;</code> is expected.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+@FunctionalInterface
+public interface IntIntConsumer extends BiConsumer<Integer, Integer> {
+    
+    /**
+     * Performs this operation on the given indices.
+     * 
+     * @param row row index
+     * @param column column index
+     */
+    void accept(int row, int column);
+    
+    /**
+     * Unboxes the indices and performs this operation on them.
+     * 
+     * @param row row index
+     * @param column column index
+     */
+    @Override
+    default void accept(Integer row, Integer column) {
+        accept(row.intValue(), column.intValue());
+    }
+}
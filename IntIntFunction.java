@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.function.BiFunction;
+
+
+
+/**
+ * Function that accepts the row and column index of an element and produces
+ * a result.
+ * Primitive specialization of {@link BiFunction} which doesn't box the
+ * indices. It extends the boxed interface, so it can be used everywhere a
+ * <code>BiFunction&lt;Integer, Integer, R&gt;</code> is expected.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ * @param <R> type of the result of the function
+ */
+@FunctionalInterface
+public interface IntIntFunction<R> extends BiFunction<Integer, Integer, R> {
+    
+    /**
+     * Applies this function to the given indices.
+     * 
+     * @param row row index
+     * @param column column index
+     * @return function result
+     */
+    R apply(int row, int column);
+    
+    /**
+     * Unboxes the indices and applies this function to them.
+     * 
+     * @param row row index
+     * @param column column index
+     * @return function result
+     */
+    @Override
+    default R apply(Integer row, Integer column) {
+        return apply(row.intValue(), column.intValue());
+    }
+}
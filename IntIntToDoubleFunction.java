@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.function.ToDoubleBiFunction;
+
+
+
+/**
+ * Function that accepts the row and column index of an element and produces
+ * a double-valued result.
+ * Primitive specialization of {@link ToDoubleBiFunction} which doesn't box
+ * the indices. It extends the boxed interface, so it can be used everywhere a
+ * <code>ToDoubleBiFunction&lt;Integer, Integer&gt;</code> is expected.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+@FunctionalInterface
+public interface IntIntToDoubleFunction
+        extends ToDoubleBiFunction<Integer, Integer> {
+    
+    /**
+     * Applies this function to the given indices.
+     * 
+     * @param row row index
+     * @param column column index
+     * @return function result
+     */
+    double applyAsDouble(int row, int column);
+    
+    /**
+     * Unboxes the indices and applies this function to them.
+     * 
+     * @param row row index
+     * @param column column index
+     * @return function result
+     */
+    @Override
+    default double applyAsDouble(Integer row, Integer column) {
+        return applyAsDouble(row.intValue(), column.intValue());
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+
+
+/**
+ * LU decomposition with partial pivoting of a square matrix.
+ * The rows of the matrix are permuted so that <code>P*A = L*U</code>, where
+ * <code>L</code> is lower triangular with a unit diagonal and
+ * <code>U</code> is upper triangular.
+ * 
+ * The decomposition is calculated once in-place on a flat copy of the
+ * matrix, which holds both factors (the unit diagonal of <code>L</code> is
+ * not stored). The factors can then be reused to solve against many
+ * right-hand sides without decomposing again.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class LUDecomposition implements Decomposition {
+    
+    /**
+     * Number of rows and columns of the decomposed matrix.
+     */
+    private final int size;
+    /**
+     * Both factors in row-major order, <code>L</code> below and
+     * <code>U</code> on and above the diagonal.
+     */
+    private final double[] lu;
+    /**
+     * Row permutation, row <code>j</code> of the factors corresponds to row
+     * <code>pivot[j]</code> of the original matrix.
+     */
+    private final int[] pivot;
+    /**
+     * Sign of the row permutation, +1 for an even and -1 for an odd number
+     * of row exchanges.
+     */
+    private final int pivotSign;
+    /**
+     * If <code>U</code> has a zero on its diagonal.
+     */
+    private final boolean singular;
+    
+    
+    
+    /**
+     * Calculates the LU decomposition of the given matrix.
+     * 
+     * @param matrix square matrix to decompose
+     */
+    public LUDecomposition(Matrix matrix) {
+        if(matrix.getHeight() != matrix.getWidth()) {
+            throw new ArithmeticException(
+                    "LU decomposition only defined for square matricies");
+        }
+        
+        size = matrix.getHeight();
+        lu = matrix.toFlatArray();
+        pivot = new int[size];
+        for(int j=0; j<size; j++) {
+            pivot[j] = j;
+        }
+        
+        
+        
+        int sign = 1;
+        for(int k=0; k<size; k++) {
+            //Find the pivot
+            int p = k;
+            for(int j=k+1; j<size; j++) {
+                if(Math.abs(lu[j*size + k]) > Math.abs(lu[p*size + k])) {
+                    p = j;
+                }
+            }
+            
+            if(p != k) {
+                swapRows(p, k);
+                final int temp = pivot[p];
+                pivot[p] = pivot[k];
+                pivot[k] = temp;
+                sign = -sign;
+            }
+            
+            //Eliminate the column below the pivot
+            final double diagonal = lu[k*size + k];
+            if(diagonal != 0) {
+                for(int j=k+1; j<size; j++) {
+                    final double factor = lu[j*size + k] /= diagonal;
+                    if(factor != 0) {
+                        for(int i=k+1; i<size; i++) {
+                            lu[j*size + i] -= factor * lu[k*size + i];
+                        }
+                    }
+                }
+            }
+        }
+        pivotSign = sign;
+        
+        boolean zeroPivot = false;
+        for(int k=0; k<size; k++) {
+            zeroPivot |= lu[k*size + k] == 0;
+        }
+        singular = zeroPivot;
+    }
+    
+    
+    
+    /**
+     * Exchanges two rows of the factors.
+     * 
+     * @param row1 first row
+     * @param row2 second row
+     */
+    private void swapRows(int row1, int row2) {
+        for(int i=0; i<size; i++) {
+            final double temp = lu[row1*size + i];
+            lu[row1*size + i] = lu[row2*size + i];
+            lu[row2*size + i] = temp;
+        }
+    }
+    
+    
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Returns the lower triangular factor <code>L</code> with a unit
+     * diagonal.
+     * 
+     * @return lower triangular factor
+     */
+    public Matrix getL() {
+        final Matrix l = new Matrix(size, size, Matrix.Layout.FLAT);
+        l.setParallel(
+                (j, i) -> (j > i) ? lu[j*size + i] : ((j == i) ? 1 : 0));
+        
+        return l;
+    }
+    
+    /**
+     * Returns the upper triangular factor <code>U</code>.
+     * 
+     * @return upper triangular factor
+     */
+    public Matrix getU() {
+        final Matrix u = new Matrix(size, size, Matrix.Layout.FLAT);
+        u.setParallel((j, i) -> (j <= i) ? lu[j*size + i] : 0);
+        
+        return u;
+    }
+    
+    /**
+     * Returns the row permutation.
+     * Row <code>j</code> of <code>L*U</code> corresponds to row
+     * <code>pivot[j]</code> of the decomposed matrix.
+     * 
+     * @return copy of the row permutation
+     */
+    public int[] getPivot() {
+        return pivot.clone();
+    }
+    
+    /**
+     * Returns if the decomposed matrix is singular, i.e. if <code>U</code>
+     * has a zero on its diagonal.
+     * 
+     * @return true if the decomposed matrix is singular
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double determinant() {
+        double determinant = pivotSign;
+        for(int k=0; k<size; k++) {
+            determinant *= lu[k*size + k];
+        }
+        
+        return determinant;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The solution is returned in a flat matrix.
+     */
+    @Override
+    public Matrix solve(Matrix b) {
+        if(b.getHeight() != size) {
+            throw new ArithmeticException("row dimensions must agree");
+        }
+        if(singular) {
+            throw new ArithmeticException("matrix is singular");
+        }
+        
+        
+        
+        final int width = b.getWidth();
+        final double[] x = new double[Math.multiplyExact(size, width)];
+        for(int j=0; j<size; j++) {
+            for(int i=0; i<width; i++) {
+                x[j*width + i] = b.get(pivot[j], i);
+            }
+        }
+        
+        //Forward substitution with L
+        for(int j=1; j<size; j++) {
+            for(int k=0; k<j; k++) {
+                final double factor = lu[j*size + k];
+                if(factor != 0) {
+                    for(int i=0; i<width; i++) {
+                        x[j*width + i] -= factor * x[k*width + i];
+                    }
+                }
+            }
+        }
+        
+        //Back substitution with U
+        for(int j=size-1; j>=0; j--) {
+            for(int k=j+1; k<size; k++) {
+                final double factor = lu[j*size + k];
+                if(factor != 0) {
+                    for(int i=0; i<width; i++) {
+                        x[j*width + i] -= factor * x[k*width + i];
+                    }
+                }
+            }
+            
+            final double diagonal = lu[j*size + j];
+            for(int i=0; i<width; i++) {
+                x[j*width + i] /= diagonal;
+            }
+        }
+        
+        return new Matrix(size, width,
+                new FlatStorage(size, width, x, 0, width));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void solve(double[] b, double[] x) {
+        if(b.length != size || x.length != size) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        if(singular) {
+            throw new ArithmeticException("matrix is singular");
+        }
+        
+        
+        
+        //Apply the permutation by following its cycles, so b and x may be
+        //the same array
+        if(x != b) {
+            System.arraycopy(b, 0, x, 0, size);
+        }
+        for(int start=0; start<size; start++) {
+            if(pivot[start] == start) {
+                continue;
+            }
+            
+            //Skip cycles that were already visited
+            int j = pivot[start];
+            while(j > start) {
+                j = pivot[j];
+            }
+            if(j < start) {
+                continue;
+            }
+            
+            final double first = x[start];
+            j = start;
+            while(pivot[j] != start) {
+                x[j] = x[pivot[j]];
+                j = pivot[j];
+            }
+            x[j] = first;
+        }
+        
+        //Forward substitution with L
+        for(int j=1; j<size; j++) {
+            double sum = x[j];
+            for(int k=0; k<j; k++) {
+                sum -= lu[j*size + k] * x[k];
+            }
+            x[j] = sum;
+        }
+        
+        //Back substitution with U
+        for(int j=size-1; j>=0; j--) {
+            double sum = x[j];
+            for(int k=j+1; k<size; k++) {
+                sum -= lu[j*size + k] * x[k];
+            }
+            x[j] = sum / lu[j*size + j];
+        }
+    }
+}
@@ -28,7 +28,14 @@ package matrix;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.PrimitiveIterator;
 import java.util.function.BiConsumer;
@@ -56,12 +63,41 @@ import java.util.stream.IntStream;
  * All operations are applied, if possible, in parallel, otherwise
  * column-row vise.
  * 
+ * The elements are either stored in one array per row or in a single
+ * contiguous array, see {@link Layout}. The layout is chosen at construction
+ * time and new matricies returned by the operations inherit the layout of
+ * this matrix.
+ * 
  * 
  * @author Sebastian Gössl
  * @version 1.4 3.9.2019
  */
 public class Matrix implements Iterable<Double> {
     
+    /**
+     * Memory layouts the elements of a matrix can be stored in.
+     */
+    public enum Layout {
+        /**
+         * Every row is stored in its own array.
+         */
+        NESTED,
+        /**
+         * All elements are stored in a single array in row-major order.
+         * Better cache locality and only one allocation per matrix.
+         */
+        FLAT,
+        /**
+         * All elements are stored in row-major order in direct buffers
+         * outside of the Java heap, so huge matricies don't burden the
+         * garbage collector. The memory can be released explicitly with
+         * {@link Matrix#close()}.
+         */
+        OFF_HEAP
+    }
+    
+    
+    
     /**
      * Dimensions of the matrix.
      * Height: Number of rows
@@ -71,17 +107,17 @@ public class Matrix implements Iterable<Double> {
     /**
      * Elements of the matrix.
      */
-    private final double[][] data;
+    private final MatrixStorage storage;
     
     
     
     /**
-     * Constructs a copy of the given matrix.
+     * Constructs a copy of the given matrix with the same layout.
      * 
      * @param other matrix to copy
      */
     public Matrix(Matrix other) {
-        this(other.getHeight(), other.getWidth());
+        this(other.getHeight(), other.getWidth(), other.getLayout());
         set(other);
     }
     
@@ -91,7 +127,19 @@ public class Matrix implements Iterable<Double> {
      * @param array data to be stored into the matrix
      */
     public Matrix(double[][] array) {
-        this(array.length, array[0].length, (j, i) -> array[j][i]);
+        this(array, Layout.NESTED);
+    }
+    
+    /**
+     * Constructs a new matrix with the content of the given array and the
+     * given layout.
+     * 
+     * @param array data to be stored into the matrix
+     * @param layout layout of the elements in memory
+     */
+    public Matrix(double[][] array, Layout layout) {
+        this(array.length, array[0].length, layout);
+        set((j, i) -> array[j][i]);
     }
     
     /**
@@ -139,6 +187,23 @@ public class Matrix implements Iterable<Double> {
         set(function);
     }
     
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns and fills the elements with the given
+     * function.
+     * The function receives the unboxed row and column indices of the current
+     * element to calculate.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param function function that recieves the indices of the element it
+     * shall calculate
+     */
+    public Matrix(int height, int width, IntIntToDoubleFunction function) {
+        this(height, width);
+        set(function);
+    }
+    
     /**
      * Constructs a new matrix with <code>height</code> rows and
      * <code>width</code> columns.
@@ -148,10 +213,284 @@ public class Matrix implements Iterable<Double> {
      * @param width number of columns
      */
     public Matrix(int height, int width) {
+        this(height, width, Layout.NESTED);
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns and the given layout.
+     * All elements are initialized to zero.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param layout layout of the elements in memory
+     */
+    public Matrix(int height, int width, Layout layout) {
+        this(height, width, MatrixStorage.create(height, width, layout));
+    }
+    
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns on top of the given storage.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param storage storage containing the elements
+     */
+    Matrix(int height, int width, MatrixStorage storage) {
         this.height = height;
         this.width = width;
-        
-        data = new double[height][width];
+        this.storage = storage;
+    }
+    
+    
+    
+    /**
+     * Returns a new identity matrix with <code>size</code> rows and columns.
+     * 
+     * @param size number of rows and columns
+     * @return identity matrix
+     */
+    public static Matrix identity(int size) {
+        return new Matrix(size, size, (j, i) -> (j == i) ? 1 : 0);
+    }
+    
+    
+    
+    /**
+     * Maps the given file into memory and returns a matrix on top of it.
+     * The elements are stored in row-major order as little-endian doubles
+     * from the start of the file, which is created or extended if necessary.
+     * Reading and writing the matrix directly accesses the pages of the file,
+     * which are loaded and written back by the operating system, so the file
+     * may be larger than the main memory.
+     * The matrix has the {@link Layout#OFF_HEAP} layout, changes are written
+     * back at the latest when it gets closed with {@link #close()}.
+     * 
+     * @param path file to map
+     * @param height number of rows
+     * @param width number of columns
+     * @return matrix on top of the mapped file
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public static Matrix map(Path path, int height, int width)
+            throws IOException {
+        try(FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return map(channel, FileChannel.MapMode.READ_WRITE, 0,
+                    height, width);
+        }
+    }
+    
+    /**
+     * Maps a part of the given file into memory and returns a matrix on top
+     * of it.
+     * The elements are stored in row-major order as little-endian doubles
+     * from the given position on. Files larger than 2GB are mapped in
+     * multiple parts. The mapping stays valid after the channel is closed.
+     * 
+     * @param channel channel of the file
+     * @param mode mode to map the file with, a read-only matrix throws an
+     * exception when it is written to
+     * @param position position of the first element in the file
+     * @param height number of rows
+     * @param width number of columns
+     * @return matrix on top of the mapped file
+     * @throws IOException if the file can't be mapped
+     * @see #map(Path, int, int)
+     */
+    public static Matrix map(FileChannel channel, FileChannel.MapMode mode,
+            long position, int height, int width) throws IOException {
+        return new Matrix(height, width,
+                BufferStorage.map(channel, mode, position, height, width));
+    }
+    
+    
+    
+    /**
+     * Reads a matrix in the binary format written by
+     * {@link #writeTo(WritableByteChannel)} from the given channel.
+     * The matrix gets the layout it was written with.
+     * 
+     * @param channel channel to read from
+     * @return matrix read
+     * @throws IOException if an I/O error occurs, the data is not a matrix
+     * of a supported version or is corrupted
+     */
+    public static Matrix readFrom(ReadableByteChannel channel)
+            throws IOException {
+        return BinaryFormat.read(channel);
+    }
+    
+    
+    
+    /**
+     * Reads a matrix from a file with comma separated values (CSV), one row
+     * per line.
+     * 
+     * @param path file to read
+     * @return matrix read
+     * @throws IOException if an I/O error occurs, a value is not a number or
+     * the rows have different lengths
+     * @see #readCsv(Path, char, boolean, Layout)
+     */
+    public static Matrix readCsv(Path path) throws IOException {
+        return readCsv(path, ',', false, Layout.NESTED);
+    }
+    
+    /**
+     * Reads a matrix from a file with delimiter separated values, e.g. CSV
+     * or TSV with <code>'\t'</code>, one row per line.
+     * The file is split into chunks of lines which are parsed in parallel
+     * directly into the new matrix. Empty lines and lines of only spaces and
+     * tabs are skipped, values may be surrounded by spaces or double quotes.
+     * 
+     * @param path file to read
+     * @param delimiter character separating the values of a row
+     * @param header if the first line is a header which is skipped
+     * @param layout layout of the new matrix
+     * @return matrix read
+     * @throws IllegalArgumentException if the delimiter is not an ASCII
+     * character
+     * @throws IOException if an I/O error occurs, a value is not a number or
+     * the rows have different lengths
+     */
+    public static Matrix readCsv(Path path, char delimiter, boolean header,
+            Layout layout) throws IOException {
+        return DelimitedText.read(path, delimiter, header, layout);
+    }
+    
+    
+    
+    /**
+     * Reads a matrix from a file in the MatrixMarket exchange format.
+     * 
+     * @param path file to read
+     * @return matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     * @see #readMatrixMarket(Path, Layout)
+     */
+    public static Matrix readMatrixMarket(Path path) throws IOException {
+        return readMatrixMarket(path, Layout.NESTED);
+    }
+    
+    /**
+     * Reads a matrix from a file in the MatrixMarket exchange format.
+     * Both the array and the coordinate format with real, integer or pattern
+     * values are supported, symmetric and skew-symmetric matricies are
+     * expanded.
+     * 
+     * @param path file to read
+     * @param layout layout of the new matrix
+     * @return matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     */
+    public static Matrix readMatrixMarket(Path path, Layout layout)
+            throws IOException {
+        return MatrixMarket.read(path, layout);
+    }
+    
+    /**
+     * Reads a matrix from a file in the MatrixMarket exchange format
+     * directly into a memory-mapped file.
+     * The file is streamed, so matricies larger than the main memory can be
+     * converted. The target file is replaced and holds the elements in the
+     * format of {@link #map(Path, int, int)} afterwards.
+     * 
+     * @param path file to read
+     * @param target file to map the new matrix to
+     * @return mapped matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     * @see #readMatrixMarket(Path, Layout)
+     */
+    public static Matrix readMatrixMarket(Path path, Path target)
+            throws IOException {
+        return MatrixMarket.read(path, target);
+    }
+    
+    
+    
+    /**
+     * Reads a matrix from a NumPy <code>.npy</code> file.
+     * The elements are decoded directly into the flat array of the new
+     * matrix.
+     * 
+     * @param path file to read
+     * @return matrix read, with the {@link Layout#FLAT} layout
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported array
+     * @see #fromNpy(Path, Layout)
+     */
+    public static Matrix fromNpy(Path path) throws IOException {
+        return fromNpy(path, Layout.FLAT);
+    }
+    
+    /**
+     * Reads a matrix from a NumPy <code>.npy</code> file.
+     * Arrays of float32 or float64 elements in C or Fortran order with up to
+     * two dimensions are supported, one dimensional arrays become column
+     * vectors.
+     * 
+     * @param path file to read
+     * @param layout layout of the new matrix
+     * @return matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported array
+     * @see #mapNpy(Path, FileChannel.MapMode)
+     */
+    public static Matrix fromNpy(Path path, Layout layout)
+            throws IOException {
+        return NpyFormat.read(path, layout);
+    }
+    
+    /**
+     * Maps a NumPy <code>.npy</code> file of little-endian float64 elements
+     * into memory without copying.
+     * Arrays in C order are mapped like {@link #map(Path, int, int)}, arrays
+     * in Fortran order as a {@link #transposeView()}. Changes of a matrix
+     * mapped with {@link FileChannel.MapMode#READ_WRITE} are written back
+     * to the file.
+     * 
+     * @param path file to map
+     * @param mode mode to map the file with
+     * @return matrix on top of the mapped file
+     * @throws IOException if an I/O error occurs, the file is not a
+     * supported array or its elements are not little-endian float64
+     */
+    public static Matrix mapNpy(Path path, FileChannel.MapMode mode)
+            throws IOException {
+        return NpyFormat.map(path, mode);
+    }
+    
+    /**
+     * Reads all arrays of a NumPy <code>.npz</code> archive.
+     * 
+     * @param path archive to read
+     * @return matricies by their names, in the order of the archive, with
+     * the {@link Layout#FLAT} layout
+     * @throws IOException if an I/O error occurs or an entry is not a
+     * supported array
+     * @see #fromNpy(Path, Layout)
+     */
+    public static Map<String, Matrix> fromNpz(Path path) throws IOException {
+        return NpyFormat.readArchive(path, Layout.FLAT);
+    }
+    
+    /**
+     * Writes the given matricies to a NumPy <code>.npz</code> archive as
+     * uncompressed float64 arrays in C order, named after their keys.
+     * 
+     * @param path archive to write
+     * @param matricies matricies by name
+     * @throws IOException if an I/O error occurs
+     */
+    public static void toNpz(Path path, Map<String, Matrix> matricies)
+            throws IOException {
+        NpyFormat.writeArchive(matricies, path);
     }
     
     
@@ -174,6 +513,24 @@ public class Matrix implements Iterable<Double> {
         return width;
     }
     
+    /**
+     * Returns the layout the elements are stored in.
+     * 
+     * @return layout of the elements in memory
+     */
+    public Layout getLayout() {
+        return storage.getLayout();
+    }
+    
+    /**
+     * Returns the storage containing the elements of this matrix.
+     * 
+     * @return storage of this matrix
+     */
+    MatrixStorage storage() {
+        return storage;
+    }
+    
     /**
      * Returns the element at the specified position.
      * 
@@ -182,7 +539,7 @@ public class Matrix implements Iterable<Double> {
      * @return the element at the specified position
      */
     public double get(int row, int column) {
-        return data[row][column];
+        return storage.get(row, column);
     }
     
     /**
@@ -195,18 +552,29 @@ public class Matrix implements Iterable<Double> {
      * @return element previously at the specified position
      */
     public double set(int row, int column, double value) {
-        final double oldElement = data[row][column];
-        data[row][column] = value;
+        final double oldElement = storage.get(row, column);
+        storage.set(row, column, value);
         return oldElement;
     }
     
     /**
      * Replaces all elements of the matrix with the specified elements.
+     * The rows are filled in parallel.
      * 
      * @param value element to replace all elements
      */
     public void set(double value) {
-        forEachIndicesParallel((j, i) -> set(j, i, value));
+        IntStream.range(0, getHeight()).parallel().forEach((j) -> {
+            final double[] row = storage.rowArray(j);
+            if(row != null) {
+                final int offset = storage.rowOffset(j);
+                Arrays.fill(row, offset, offset + getWidth(), value);
+            } else {
+                for(int i=0; i<getWidth(); i++) {
+                    storage.set(j, i, value);
+                }
+            }
+        });
     }
     
     /**
@@ -231,6 +599,18 @@ public class Matrix implements Iterable<Double> {
                 (j, i) -> set(j, i, function.applyAsDouble(j, i)));
     }
     
+    /**
+     * Replaces all elements with the values returned from the given function.
+     * It recieves the unboxed position (row and column indices) of the
+     * element to replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void set(IntIntToDoubleFunction function) {
+        forEachIndices(
+                (j, i) -> set(j, i, function.applyAsDouble(j, i)));
+    }
+    
     /**
      * Replaces all elements with the values of the given matrix.
      * 
@@ -253,6 +633,19 @@ public class Matrix implements Iterable<Double> {
                 (j, i) -> set(j, i, function.applyAsDouble(j, i)));
     }
     
+    /**
+     * Replaces all elements with the values returned from the given function
+     * in parallel.
+     * It recieves the unboxed position (row and column indices) of the
+     * element to replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void setParallel(IntIntToDoubleFunction function) {
+        forEachIndicesParallel(
+                (j, i) -> set(j, i, function.applyAsDouble(j, i)));
+    }
+    
     
     
     /**
@@ -262,7 +655,7 @@ public class Matrix implements Iterable<Double> {
      * @return sum
      */
     public Matrix add(Matrix operand) {
-        return applyNewParallel(operand, (x, y) -> x + y);
+        return elementwise(Elementwise.Operation.ADD, operand, 0);
     }
     
     /**
@@ -273,7 +666,7 @@ public class Matrix implements Iterable<Double> {
      * @return difference
      */
     public Matrix subtract(Matrix operand) {
-        return applyNewParallel(operand, (x, y) -> x - y);
+        return elementwise(Elementwise.Operation.SUBTRACT, operand, 0);
     }
     
     /**
@@ -285,29 +678,60 @@ public class Matrix implements Iterable<Double> {
      * @return product
      */
     public Matrix multiply(double factor) {
-        return applyNewParallel((x) -> factor * x);
+        return elementwise(Elementwise.Operation.SCALE, null, factor);
     }
     
     /**
      * Matrix multiplies this matrix with the given matrix and returns the
      * result.
+     * The product is calculated in parallel by a cache-blocked kernel.
      * 
      * @param operand second factor
      * @return product
      */
     public Matrix multiply(Matrix operand) {
-        final Matrix result = new Matrix(getHeight(), operand.getWidth());
-        result.setParallel((j, i) -> {
-            double sum = 0;
-            for(int k=0; k<getWidth() && k<operand.getHeight(); k++) {
-                sum += get(j, k) * operand.get(k, i);
-            }
-            return sum;
-        });
+        final Matrix result = new Matrix(getHeight(), operand.getWidth(),
+                getLayout());
+        Gemm.multiplyParallel(this, operand, result);
         
         return result;
     }
     
+    /**
+     * Multiplies this matrix with the given vector and returns the result.
+     * 
+     * @param operand vector to multiply with
+     * @return product
+     * @throws ArithmeticException if the size of the vector doesn't match
+     * the width of this matrix
+     */
+    public Vector multiply(Vector operand) {
+        final Vector result = new Vector(getHeight());
+        multiplyInto(operand, result);
+        
+        return result;
+    }
+    
+    /**
+     * Multiplies this matrix with the given vector and writes the result into
+     * <code>result</code>, so no memory is allocated.
+     * 
+     * @param operand vector to multiply with
+     * @param result vector to write the product into
+     * @throws ArithmeticException if the sizes of the vectors don't match
+     * the dimensions of this matrix
+     */
+    public void multiplyInto(Vector operand, Vector result) {
+        if(operand.getSize() != getWidth()
+                || result.getSize() != getHeight()) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        
+        final double[] x = (operand.data == result.data)
+                ? operand.data.clone() : operand.data;
+        Gemv.multiply(this, x, result.data);
+    }
+    
     /**
      * Multiplies this matrix with the given matrix elementwise and returns the
      * result.
@@ -316,7 +740,7 @@ public class Matrix implements Iterable<Double> {
      * @return product
      */
     public Matrix multiplyElementwise(Matrix operand) {
-        return applyNewParallel(operand, (x, y) -> x * y);
+        return elementwise(Elementwise.Operation.MULTIPLY, operand, 0);
     }
     
     /**
@@ -327,27 +751,407 @@ public class Matrix implements Iterable<Double> {
      * @return quotient
      */
     public Matrix divideElementwise(Matrix operand) {
-        return applyNewParallel(operand, (x, y) -> x / y);
+        return elementwise(Elementwise.Operation.DIVIDE, operand, 0);
+    }
+    
+    /**
+     * Applies one of the built-in elementwise operations on this matrix and
+     * returns the result.
+     * 
+     * @param operation operation to apply
+     * @param operand second operand, null for scalar operations
+     * @param factor scalar factor
+     * @return result of the operation
+     */
+    private Matrix elementwise(Elementwise.Operation operation,
+            Matrix operand, double factor) {
+        
+        final Matrix result =
+                new Matrix(getHeight(), getWidth(), getLayout());
+        Elementwise.apply(operation, this, operand, factor, result);
+        
+        return result;
     }
     
     /**
      * Returns the transpose of this matrix.
+     * The transpose is calculated tile by tile, so both matricies are
+     * accessed cache friendly.
      * 
      * @return transpose of this matrix.
      */
     public Matrix transpose() {
-        final Matrix result = new Matrix(getWidth(), getHeight());
-        result.setParallel((j, i) -> get(i, j));
+        final Matrix result =
+                new Matrix(getWidth(), getHeight(), getLayout());
+        transposeInto(result);
         
         return result;
     }
     
+    
+    
+    /**
+     * Returns a view of the given block of this matrix.
+     * The view shares the elements with this matrix, changes to one of them
+     * are visible in the other one, and can be used like any other matrix.
+     * 
+     * @param row first row of the block
+     * @param column first column of the block
+     * @param height number of rows of the block
+     * @param width number of columns of the block
+     * @return view of the block
+     * @throws IndexOutOfBoundsException if the block is not inside of this
+     * matrix
+     */
+    public Matrix subMatrixView(int row, int column, int height, int width) {
+        if(row < 0 || column < 0 || height < 0 || width < 0
+                || row + height > getHeight()
+                || column + width > getWidth()) {
+            throw new IndexOutOfBoundsException("block (" + row + ", "
+                    + column + ") " + height + "x" + width);
+        }
+        
+        return new Matrix(height, width,
+                storage.view(row, column, height, width));
+    }
+    
+    /**
+     * Returns a view of the given row of this matrix as a matrix with a
+     * single row.
+     * 
+     * @param row row to return the view of
+     * @return view of the row
+     * @see #subMatrixView(int, int, int, int)
+     */
+    public Matrix rowView(int row) {
+        return subMatrixView(row, 0, 1, getWidth());
+    }
+    
+    /**
+     * Returns a view of the given column of this matrix as a matrix with a
+     * single column.
+     * 
+     * @param column column to return the view of
+     * @return view of the column
+     * @see #subMatrixView(int, int, int, int)
+     */
+    public Matrix columnView(int column) {
+        return subMatrixView(0, column, getHeight(), 1);
+    }
+    
+    /**
+     * Returns a view of the transpose of this matrix.
+     * The view shares the elements with this matrix, changes to one of them
+     * are visible in the other one.
+     * 
+     * @return view of the transpose
+     */
+    public Matrix transposeView() {
+        return new Matrix(getWidth(), getHeight(), storage.transposedView());
+    }
+    
+    
+    
+    /**
+     * Closes this matrix if it is stored outside of the heap, otherwise does
+     * nothing. The memory is released, and a mapped file is written back and
+     * unmapped, immediately or, if another thread is still accessing an
+     * element, as soon as that access has finished. Before Java 9 the
+     * memory is left to the garbage collector instead.
+     * Accessing this matrix or one of its views afterwards throws an
+     * {@link IllegalStateException}.
+     */
+    public void close() {
+        storage.close();
+    }
+    
+    
+    
+    /**
+     * Returns a lazy expression consisting of this matrix.
+     * Elementwise operations on the expression are not calculated until it
+     * gets evaluated, then all of them are calculated in a single pass.
+     * 
+     * @return expression consisting of this matrix
+     * @see MatrixExpression
+     */
+    public MatrixExpression lazy() {
+        return new MatrixExpression.Leaf(this);
+    }
+    
+    
+    
+    /**
+     * Adds the given matrix to this matrix elementwise.
+     * 
+     * @param operand other summand
+     */
+    public void addInPlace(Matrix operand) {
+        addInto(operand, this);
+    }
+    
+    /**
+     * Subtracts the given matrix from this matrix elementwise.
+     * 
+     * @param operand subtrahend
+     */
+    public void subtractInPlace(Matrix operand) {
+        subtractInto(operand, this);
+    }
+    
+    /**
+     * Multiplies every element of this matrix with the given value.
+     * 
+     * @param factor scalar factor
+     */
+    public void multiplyInPlace(double factor) {
+        multiplyInto(factor, this);
+    }
+    
+    /**
+     * Multiplies this matrix with the given matrix elementwise.
+     * 
+     * @param operand factor
+     */
+    public void multiplyElementwiseInPlace(Matrix operand) {
+        multiplyElementwiseInto(operand, this);
+    }
+    
+    /**
+     * Divides this matrix by the given matrix elementwise.
+     * 
+     * @param operand divisor
+     */
+    public void divideElementwiseInPlace(Matrix operand) {
+        divideElementwiseInto(operand, this);
+    }
+    
+    /**
+     * Adds the given matrix to this matrix elementwise and stores the result
+     * in <code>result</code>.
+     * The result may be this matrix or the operand.
+     * 
+     * @param operand other summand
+     * @param result matrix to store the sum in
+     * @throws ArithmeticException if the result has other dimensions than
+     * this matrix
+     */
+    public void addInto(Matrix operand, Matrix result) {
+        elementwiseInto(Elementwise.Operation.ADD, operand, 0, result);
+    }
+    
+    /**
+     * Subtracts the given matrix from this matrix elementwise and stores the
+     * result in <code>result</code>.
+     * The result may be this matrix or the operand.
+     * 
+     * @param operand subtrahend
+     * @param result matrix to store the difference in
+     * @throws ArithmeticException if the result has other dimensions than
+     * this matrix
+     */
+    public void subtractInto(Matrix operand, Matrix result) {
+        elementwiseInto(Elementwise.Operation.SUBTRACT, operand, 0, result);
+    }
+    
+    /**
+     * Multiplies every element of this matrix with the given value and stores
+     * the result in <code>result</code>.
+     * The result may be this matrix.
+     * 
+     * @param factor scalar factor
+     * @param result matrix to store the product in
+     * @throws ArithmeticException if the result has other dimensions than
+     * this matrix
+     */
+    public void multiplyInto(double factor, Matrix result) {
+        elementwiseInto(Elementwise.Operation.SCALE, null, factor, result);
+    }
+    
+    /**
+     * Matrix multiplies this matrix with the given matrix and stores the
+     * result in <code>result</code>.
+     * If the result shares elements with this matrix or the operand, the
+     * product is calculated in a temporary matrix first.
+     * 
+     * @param operand second factor
+     * @param result matrix to store the product in
+     * @throws ArithmeticException if the result doesn't have the height of
+     * this matrix and the width of the operand
+     */
+    public void multiplyInto(Matrix operand, Matrix result) {
+        checkResult(result, getHeight(), operand.getWidth());
+        
+        if(result.sharesStorage(this) || result.sharesStorage(operand)) {
+            final Matrix product = multiply(operand);
+            Elementwise.apply(Elementwise.Operation.SCALE,
+                    product, null, 1, result);
+            return;
+        }
+        
+        result.set(0);
+        Gemm.multiplyParallel(this, operand, result);
+    }
+    
+    /**
+     * Multiplies this matrix with the given matrix elementwise and stores the
+     * result in <code>result</code>.
+     * The result may be this matrix or the operand.
+     * 
+     * @param operand factor
+     * @param result matrix to store the product in
+     * @throws ArithmeticException if the result has other dimensions than
+     * this matrix
+     */
+    public void multiplyElementwiseInto(Matrix operand, Matrix result) {
+        elementwiseInto(Elementwise.Operation.MULTIPLY, operand, 0, result);
+    }
+    
+    /**
+     * Divides this matrix by the given matrix elementwise and stores the
+     * result in <code>result</code>.
+     * The result may be this matrix or the operand.
+     * 
+     * @param operand divisor
+     * @param result matrix to store the quotient in
+     * @throws ArithmeticException if the result has other dimensions than
+     * this matrix
+     */
+    public void divideElementwiseInto(Matrix operand, Matrix result) {
+        elementwiseInto(Elementwise.Operation.DIVIDE, operand, 0, result);
+    }
+    
+    /**
+     * Stores the transpose of this matrix in <code>result</code>.
+     * If the result is this square matrix, it is transposed in place. If it
+     * shares other elements with this matrix, the transpose is calculated
+     * from a copy.
+     * 
+     * @param result matrix to store the transpose in
+     * @throws ArithmeticException if the dimensions of the result are not
+     * the swapped dimensions of this matrix
+     */
+    public void transposeInto(Matrix result) {
+        checkResult(result, getWidth(), getHeight());
+        
+        if(result.sharesStorage(this)) {
+            if(result.storage.sameElements(storage)) {
+                Transpose.transposeSquare(result.storage, getHeight());
+            } else {
+                Transpose.transpose(new Matrix(this).storage,
+                        getHeight(), getWidth(), result.storage);
+            }
+            return;
+        }
+        
+        Transpose.transpose(storage, getHeight(), getWidth(), result.storage);
+    }
+    
+    /**
+     * Transposes the elements of this matrix in place, without allocating a
+     * second array, and returns the transpose.
+     * A square matrix is transposed tile by tile and returned itself.
+     * The dimensions of a matrix never change, so for a non-square matrix
+     * with the FLAT layout the elements are permuted by following the cycles
+     * within its array and a new matrix with the swapped dimensions is
+     * returned, which wraps the same array. This matrix and all views of it
+     * then hold the elements in an unspecified order and must not be used
+     * anymore, only the returned matrix.
+     * 
+     * @return transpose of this matrix, this matrix itself if it is square
+     * @throws ArithmeticException if this matrix is neither square nor
+     * stored contiguously with the FLAT layout
+     */
+    public Matrix transposeInPlace() {
+        if(getHeight() == getWidth()) {
+            Transpose.transposeSquare(storage, getHeight());
+            return this;
+        }
+        
+        if(storage instanceof FlatStorage) {
+            final FlatStorage transposed =
+                    ((FlatStorage)storage).transposeInPlace();
+            if(transposed != null) {
+                return new Matrix(getWidth(), getHeight(), transposed);
+            }
+        }
+        
+        throw new ArithmeticException("matrix must be square or flat");
+    }
+    
+    /**
+     * Applies one of the built-in elementwise operations on this matrix and
+     * stores the result in <code>result</code>.
+     * Every element of the result only depends on the elements at the same
+     * position, so the result may be one of the operands. If it shares other
+     * elements with an operand, the result is calculated in a temporary
+     * matrix first.
+     * 
+     * @param operation operation to apply
+     * @param operand second operand, null for scalar operations
+     * @param factor scalar factor
+     * @param result matrix to store the result in
+     */
+    private void elementwiseInto(Elementwise.Operation operation,
+            Matrix operand, double factor, Matrix result) {
+        
+        checkResult(result, getHeight(), getWidth());
+        
+        if(overlaps(result) || (operand != null && operand.overlaps(result))) {
+            final Matrix temporary = elementwise(operation, operand, factor);
+            Elementwise.apply(Elementwise.Operation.SCALE,
+                    temporary, null, 1, result);
+            return;
+        }
+        
+        Elementwise.apply(operation, this, operand, factor, result);
+    }
+    
+    /**
+     * Throws an exception if the given result matrix doesn't have the given
+     * dimensions.
+     * 
+     * @param result matrix to check
+     * @param height expected number of rows
+     * @param width expected number of columns
+     */
+    private static void checkResult(Matrix result, int height, int width) {
+        if(result.getHeight() != height || result.getWidth() != width) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+    }
+    
+    /**
+     * Returns if this matrix and the given matrix may store their elements in
+     * the same memory, e.g. because one is a view of the other, so writing to
+     * one may change the other.
+     * 
+     * @param other matrix to check
+     * @return true if both matricies share their elements
+     */
+    boolean sharesStorage(Matrix other) {
+        return storage.array() == other.storage.array();
+    }
+    
+    /**
+     * Returns if this matrix shares elements with the given matrix at other
+     * positions, so writing one element of the given matrix may change
+     * another element of this matrix.
+     * 
+     * @param other matrix to check
+     * @return true if both matricies share elements at different positions
+     */
+    boolean overlaps(Matrix other) {
+        return sharesStorage(other) && !storage.sameElements(other.storage);
+    }
+    
     /**
      * Returns the determinant of this matrix.
-     * The determinant is calculated recursively with the Laplace expansion
-     * along the first row.
+     * Matricies up to 3x3 are calculated directly, larger ones with a
+     * LU decomposition with partial pivoting.
      * 
      * @return determinant of this matrix
+     * @see LUDecomposition
      */
     public double determinant() {
         if(getHeight() != getWidth()) {
@@ -380,36 +1184,39 @@ public class Matrix implements Iterable<Double> {
         
         
         
-        double sum = 0;
-        for(int j=0; j<getWidth(); j++) {
-            final double sgn = (j % 2 == 0) ? (1) : (-1);
-            final Matrix under = rowColRem(0, j);
-            
-            sum += sgn * get(0, j) * under.determinant();
+        return new LUDecomposition(this).determinant();
+    }
+    
+    /**
+     * Solves <code>A*X = B</code> for <code>X</code>, where <code>A</code> is
+     * this matrix.
+     * If this matrix has more rows than columns, the least squares solution
+     * is returned.
+     * This matrix gets decomposed on every call, use a
+     * {@link LUDecomposition} or {@link QRDecomposition} to solve against the
+     * same matrix multiple times.
+     * 
+     * @param b right-hand sides, one per column
+     * @return solutions, one per column
+     * @throws ArithmeticException if this matrix has less rows than columns,
+     * is singular or rank deficient
+     */
+    public Matrix solve(Matrix b) {
+        if(getHeight() > getWidth()) {
+            return new QRDecomposition(this).solveLeastSquares(b);
         }
         
-        return sum;
+        return new LUDecomposition(this).solve(b);
     }
     
     /**
-     * Helper method for Laplace expansion in determinant().
-     * Returns a copy of this matrix with the specified row & column removed.
+     * Returns the inverse of this matrix.
      * 
-     * @param row row to be removed
-     * @param column column to be removed
-     * @return copy of this matrix with the specified row & column removed
+     * @return inverse of this matrix
+     * @throws ArithmeticException if this matrix is not square or singular
      */
-    private Matrix rowColRem(int row, int column) {
-        return new Matrix(getHeight()-1, getWidth()-1, (j, i) -> {
-            if(j >= row) {
-                j++;
-            }
-            if(i >= column) {
-                i++;
-            }
-            
-            return get(j, i);
-        });
+    public Matrix inverse() {
+        return new LUDecomposition(this).inverse();
     }
     
     
@@ -454,8 +1261,11 @@ public class Matrix implements Iterable<Double> {
      * @return result of the operation
      */
     public Matrix applyNew(DoubleUnaryOperator operator) {
-        return new Matrix(getHeight(), getWidth(),
-                (j, i) -> operator.applyAsDouble(get(j, i)));
+        final Matrix newMatrix =
+                new Matrix(getHeight(), getWidth(), getLayout());
+        newMatrix.set((j, i) -> operator.applyAsDouble(get(j, i)));
+        
+        return newMatrix;
     }
     
     /**
@@ -467,8 +1277,12 @@ public class Matrix implements Iterable<Double> {
      * @return result of the operation
      */
     public Matrix applyNew(Matrix operand, DoubleBinaryOperator operator) {
-        return new Matrix(getHeight(), getWidth(), (j, i) ->
+        final Matrix newMatrix =
+                new Matrix(getHeight(), getWidth(), getLayout());
+        newMatrix.set((j, i) ->
                 operator.applyAsDouble(get(j, i), operand.get(j, i)));
+        
+        return newMatrix;
     }
     
     /**
@@ -484,15 +1298,19 @@ public class Matrix implements Iterable<Double> {
     public Matrix applyNewDifSize(Matrix operand,
             DoubleBinaryOperator operator) {
         
-        return new Matrix(
+        final Matrix newMatrix = new Matrix(
                 Math.max(getHeight(), operand.getHeight()),
                 Math.max(getWidth(), operand.getWidth()),
-                (j, i) -> {
-                    final double value1 = get(j % getHeight(), i % getWidth());
-                    final double value2 = operand.get(
-                            j % operand.getHeight(), i % operand.getWidth());
-                    return operator.applyAsDouble(value1, value2);
-                });
+                getLayout());
+        
+        newMatrix.set((j, i) -> {
+            final double value1 = get(j % getHeight(), i % getWidth());
+            final double value2 = operand.get(
+                    j % operand.getHeight(), i % operand.getWidth());
+            return operator.applyAsDouble(value1, value2);
+        });
+        
+        return newMatrix;
     }
     
     
@@ -540,7 +1358,8 @@ public class Matrix implements Iterable<Double> {
      * @return result of the operation
      */
     public Matrix applyNewParallel(DoubleUnaryOperator operator) {
-        final Matrix newMatrix = new Matrix(getHeight(), getWidth());
+        final Matrix newMatrix =
+                new Matrix(getHeight(), getWidth(), getLayout());
         newMatrix.setParallel((j, i) -> operator.applyAsDouble(get(j, i)));
         
         return newMatrix;
@@ -557,7 +1376,8 @@ public class Matrix implements Iterable<Double> {
     public Matrix applyNewParallel(Matrix operand,
             DoubleBinaryOperator operator) {
         
-        final Matrix newMatrix = new Matrix(getHeight(), getWidth());
+        final Matrix newMatrix =
+                new Matrix(getHeight(), getWidth(), getLayout());
         newMatrix.setParallel((j, i) ->
                 operator.applyAsDouble(get(j, i), operand.get(j, i)));
         
@@ -579,7 +1399,8 @@ public class Matrix implements Iterable<Double> {
         
         final Matrix newMatrix = new Matrix(
                 Math.max(getHeight(), operand.getHeight()),
-                Math.max(getWidth(), operand.getWidth()));
+                Math.max(getWidth(), operand.getWidth()),
+                getLayout());
         
         newMatrix.setParallel((j, i) -> {
             final double value1 = get(j % getHeight(), i % getWidth());
@@ -667,6 +1488,17 @@ public class Matrix implements Iterable<Double> {
      * @param consumer consumer to be applied on all available indices
      */
     public void forEachIndices(BiConsumer<Integer, Integer> consumer) {
+        forEachIndices((IntIntConsumer)consumer::accept);
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix in
+     * the same order as the iterator traverses them.
+     * The indices are passed unboxed.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndices(IntIntConsumer consumer) {
         for(int j=0; j<getHeight(); j++) {
             for(int i=0; i<getWidth(); i++) {
                 consumer.accept(j, i);
@@ -681,9 +1513,23 @@ public class Matrix implements Iterable<Double> {
      * @param consumer consumer to be applied on all available indices
      */
     public void forEachIndicesParallel(BiConsumer<Integer, Integer> consumer) {
-        IntStream.range(0, getHeight()).parallel().forEach((j) ->
-                IntStream.range(0, getWidth()).parallel().forEach((i) ->
-                        consumer.accept(j, i)));
+        forEachIndicesParallel((IntIntConsumer)consumer::accept);
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix in
+     * parallel.
+     * The rows are processed in parallel, the elements of a row one after
+     * another. The indices are passed unboxed.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndicesParallel(IntIntConsumer consumer) {
+        IntStream.range(0, getHeight()).parallel().forEach((j) -> {
+            for(int i=0; i<getWidth(); i++) {
+                consumer.accept(j, i);
+            }
+        });
     }
     
     
@@ -708,6 +1554,72 @@ public class Matrix implements Iterable<Double> {
         return image;
     }
     
+    /**
+     * Writes this matrix to the given channel in a compact binary format.
+     * A 32 byte header with a magic number, the version, the data type, the
+     * layout, the dimensions and a CRC-32 checksum is followed by the raw
+     * elements as little-endian doubles in row-major order, which are
+     * transferred in bulk.
+     * 
+     * @param channel channel to write to
+     * @throws IOException if an I/O error occurs
+     * @see #readFrom(ReadableByteChannel)
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        BinaryFormat.write(this, channel);
+    }
+    
+    /**
+     * Writes this matrix to a file with comma separated values (CSV), one row
+     * per line.
+     * 
+     * @param path file to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeCsv(Path path) throws IOException {
+        writeCsv(path, ',');
+    }
+    
+    /**
+     * Writes this matrix to a file with delimiter separated values, e.g. CSV
+     * or TSV with <code>'\t'</code>, one row per line.
+     * Blocks of rows are formatted in parallel and written in order.
+     * 
+     * @param path file to write
+     * @param delimiter character separating the values of a row
+     * @throws IllegalArgumentException if the delimiter is not an ASCII
+     * character
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeCsv(Path path, char delimiter) throws IOException {
+        DelimitedText.write(this, path, delimiter);
+    }
+    
+    /**
+     * Writes this matrix to a file in the MatrixMarket array format.
+     * 
+     * @param path file to write
+     * @throws IOException if an I/O error occurs
+     * @see #readMatrixMarket(Path)
+     */
+    public void writeMatrixMarket(Path path) throws IOException {
+        MatrixMarket.write(this, path);
+    }
+    
+    /**
+     * Writes this matrix to a NumPy <code>.npy</code> file as a float64
+     * array in C order.
+     * The elements are transferred in bulk and start at a 64 byte aligned
+     * position, so the file can be mapped with
+     * {@link #mapNpy(Path, FileChannel.MapMode)}.
+     * 
+     * @param path file to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void toNpy(Path path) throws IOException {
+        NpyFormat.write(this, path);
+    }
+    
     /**
      * Returns a copy of this matrix in 2 dimensional array form
      * 
@@ -721,6 +1633,30 @@ public class Matrix implements Iterable<Double> {
         return array;
     }
     
+    /**
+     * Returns a copy of this matrix as a single array in row-major order.
+     * 
+     * @return copy of this matrix in row-major order
+     */
+    double[] toFlatArray() {
+        final double[] array =
+                new double[Math.multiplyExact(getHeight(), getWidth())];
+        
+        for(int j=0; j<getHeight(); j++) {
+            final double[] row = storage.rowArray(j);
+            if(row != null) {
+                System.arraycopy(row, storage.rowOffset(j),
+                        array, j * getWidth(), getWidth());
+            } else {
+                for(int i=0; i<getWidth(); i++) {
+                    array[j * getWidth() + i] = get(j, i);
+                }
+            }
+        }
+        
+        return array;
+    }
+    
     /**
      * Returns a string representation of the contents of this matrix.
      * 
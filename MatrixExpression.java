@@ -0,0 +1,679 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Lazily evaluated elementwise expression over matricies.
+ * An expression is started with {@link Matrix#lazy()} and extended with the
+ * usual elementwise operations, which only build up a tree. Nothing is
+ * calculated until {@link #evaluate()}, {@link #evaluateInto(Matrix)} or
+ * {@link #sum()} is called, which run over the elements only once and
+ * calculate the whole expression for a small chunk of a row at a time, so no
+ * intermediate matricies are created.
+ * e.g. <code>a.lazy().add(b).multiplyElementwise(c).multiply(2).evaluate()
+ * </code>
+ * 
+ * Expressions are immutable, but the matricies they are built of are read
+ * only at evaluation time.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public abstract class MatrixExpression {
+    
+    /**
+     * Number of elements of a row evaluated at once, small enough for the
+     * buffers of all nodes to stay in the L1 cache.
+     */
+    private static final int CHUNK = 512;
+    /**
+     * Number of elements from which on the rows are evaluated in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+    /**
+     * Minimum number of elements evaluated by a single parallel task.
+     */
+    private static final int TASK_SIZE = 1 << 14;
+    
+    
+    
+    /**
+     * Dimensions of the result.
+     * Height: Number of rows
+     * Width: Number of columns
+     */
+    private final int height, width;
+    
+    
+    
+    /**
+     * Constructs a new expression with the given dimensions.
+     * 
+     * @param height number of rows of the result
+     * @param width number of columns of the result
+     */
+    MatrixExpression(int height, int width) {
+        this.height = height;
+        this.width = width;
+    }
+    
+    
+    
+    /**
+     * Returns the number of rows of the result.
+     * 
+     * @return number of rows of the result
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Returns the number of columns of the result.
+     * 
+     * @return number of columns of the result
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    
+    
+    /**
+     * Returns the expression adding the given matrix elementwise.
+     * 
+     * @param operand other summand
+     * @return sum
+     */
+    public MatrixExpression add(Matrix operand) {
+        return add(operand.lazy());
+    }
+    
+    /**
+     * Returns the expression adding the given expression elementwise.
+     * 
+     * @param operand other summand
+     * @return sum
+     */
+    public MatrixExpression add(MatrixExpression operand) {
+        return new Binary(Elementwise.Operation.ADD, this, operand);
+    }
+    
+    /**
+     * Returns the expression subtracting the given matrix elementwise.
+     * 
+     * @param operand subtrahend
+     * @return difference
+     */
+    public MatrixExpression subtract(Matrix operand) {
+        return subtract(operand.lazy());
+    }
+    
+    /**
+     * Returns the expression subtracting the given expression elementwise.
+     * 
+     * @param operand subtrahend
+     * @return difference
+     */
+    public MatrixExpression subtract(MatrixExpression operand) {
+        return new Binary(Elementwise.Operation.SUBTRACT, this, operand);
+    }
+    
+    /**
+     * Returns the expression multiplying every element with the given value.
+     * 
+     * @param factor scalar factor
+     * @return product
+     */
+    public MatrixExpression multiply(double factor) {
+        return new Unary(this, (x) -> factor * x, factor);
+    }
+    
+    /**
+     * Returns the expression multiplying with the given matrix elementwise.
+     * 
+     * @param operand factor
+     * @return product
+     */
+    public MatrixExpression multiplyElementwise(Matrix operand) {
+        return multiplyElementwise(operand.lazy());
+    }
+    
+    /**
+     * Returns the expression multiplying with the given expression
+     * elementwise.
+     * 
+     * @param operand factor
+     * @return product
+     */
+    public MatrixExpression multiplyElementwise(MatrixExpression operand) {
+        return new Binary(Elementwise.Operation.MULTIPLY, this, operand);
+    }
+    
+    /**
+     * Returns the expression dividing by the given matrix elementwise.
+     * 
+     * @param operand divisor
+     * @return quotient
+     */
+    public MatrixExpression divideElementwise(Matrix operand) {
+        return divideElementwise(operand.lazy());
+    }
+    
+    /**
+     * Returns the expression dividing by the given expression elementwise.
+     * 
+     * @param operand divisor
+     * @return quotient
+     */
+    public MatrixExpression divideElementwise(MatrixExpression operand) {
+        return new Binary(Elementwise.Operation.DIVIDE, this, operand);
+    }
+    
+    /**
+     * Returns the expression applying the given operator on every element.
+     * 
+     * @param operator operator to apply on every element
+     * @return result of the operation
+     */
+    public MatrixExpression apply(DoubleUnaryOperator operator) {
+        return new Unary(this, operator, Double.NaN);
+    }
+    
+    
+    
+    /**
+     * Evaluates this expression into a new matrix.
+     * The result has the layout of the first matrix of the expression.
+     * 
+     * @return result of this expression
+     */
+    public Matrix evaluate() {
+        final Matrix result = new Matrix(height, width, layout());
+        evaluateInto(result);
+        
+        return result;
+    }
+    
+    /**
+     * Evaluates this expression and stores the result in the given matrix.
+     * The result may be one of the matricies of the expression.
+     * 
+     * @param result matrix to store the result in
+     * @throws ArithmeticException if the result has other dimensions than
+     * this expression
+     */
+    public void evaluateInto(Matrix result) {
+        if(result.getHeight() != height || result.getWidth() != width) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        
+        
+        
+        //Elements at other positions would be read after they are written
+        if(overlaps(result)) {
+            final Matrix temporary = evaluate();
+            Elementwise.apply(Elementwise.Operation.SCALE,
+                    temporary, null, 1, result);
+            return;
+        }
+        
+        //Writing directly into the result would overwrite elements of the
+        //result that are read again by later nodes
+        final boolean direct = !references(result);
+        final MatrixStorage storage = result.storage();
+        
+        forRows((rowFrom, rowTo) -> {
+            final double[][] buffers = new double[levels() + 1][CHUNK];
+            final double[] buffer = buffers[buffers.length - 1];
+            
+            for(int j=rowFrom; j<rowTo; j++) {
+                final double[] row = direct ? storage.rowArray(j) : null;
+                final int offset = (row != null) ? storage.rowOffset(j) : 0;
+                
+                for(int from=0; from<width; from+=CHUNK) {
+                    final int length = Math.min(CHUNK, width - from);
+                    
+                    if(row != null) {
+                        evaluate(j, from, length, row, offset + from,
+                                buffers, 0);
+                    } else {
+                        evaluate(j, from, length, buffer, 0, buffers, 0);
+                        for(int i=0; i<length; i++) {
+                            storage.set(j, from + i, buffer[i]);
+                        }
+                    }
+                }
+            }
+            
+            return 0;
+        });
+    }
+    
+    /**
+     * Evaluates this expression and returns the sum of all elements of the
+     * result, without storing the result.
+     * 
+     * @return sum of all elements of the result
+     */
+    public double sum() {
+        return forRows((rowFrom, rowTo) -> {
+            final double[][] buffers = new double[levels() + 1][CHUNK];
+            final double[] buffer = buffers[buffers.length - 1];
+            
+            double sum = 0;
+            for(int j=rowFrom; j<rowTo; j++) {
+                for(int from=0; from<width; from+=CHUNK) {
+                    final int length = Math.min(CHUNK, width - from);
+                    
+                    evaluate(j, from, length, buffer, 0, buffers, 0);
+                    for(int i=0; i<length; i++) {
+                        sum += buffer[i];
+                    }
+                }
+            }
+            
+            return sum;
+        });
+    }
+    
+    
+    
+    /**
+     * Action on a block of rows.
+     */
+    private interface RowBlock {
+        
+        /**
+         * Processes the given rows.
+         * 
+         * @param rowFrom first row (inclusive)
+         * @param rowTo last row (exclusive)
+         * @return partial result of the block
+         */
+        double apply(int rowFrom, int rowTo);
+    }
+    
+    /**
+     * Applies the given action on blocks of rows, in parallel if the
+     * expression is large enough, and returns the sum of the partial results.
+     * 
+     * @param action action to apply on every block of rows
+     * @return sum of the partial results
+     */
+    private double forRows(RowBlock action) {
+        if((long)height * width < PARALLEL_THRESHOLD || height <= 1) {
+            return action.apply(0, height);
+        }
+        
+        final int rowsPerTask = Math.max(1, TASK_SIZE / Math.max(1, width));
+        return IntStream.range(0, (height + rowsPerTask - 1) / rowsPerTask)
+                .parallel().mapToDouble((task) -> action.apply(
+                        task * rowsPerTask,
+                        Math.min(height, (task + 1) * rowsPerTask)))
+                .sum();
+    }
+    
+    
+    
+    /**
+     * Evaluates a chunk of a row of this expression.
+     * 
+     * @param row row to evaluate
+     * @param from first column of the chunk
+     * @param length number of elements of the chunk
+     * @param result array to write the chunk into
+     * @param offset index of the first element in <code>result</code>
+     * @param buffers one buffer per level for intermediate results
+     * @param level first buffer this node may use
+     */
+    abstract void evaluate(int row, int from, int length,
+            double[] result, int offset, double[][] buffers, int level);
+    
+    /**
+     * Returns the number of buffers needed for intermediate results.
+     * 
+     * @return number of buffers needed
+     */
+    abstract int levels();
+    
+    /**
+     * Returns if the given matrix is read by this expression.
+     * 
+     * @param matrix matrix to check
+     * @return true if this expression reads elements of the matrix
+     */
+    abstract boolean references(Matrix matrix);
+    
+    /**
+     * Returns if the given matrix shares elements with a matrix read by this
+     * expression at other positions.
+     * 
+     * @param matrix matrix to check
+     * @return true if this expression reads elements of the matrix at other
+     * positions
+     */
+    abstract boolean overlaps(Matrix matrix);
+    
+    /**
+     * Returns the layout of the first matrix of this expression.
+     * 
+     * @return layout of the first matrix
+     */
+    abstract Matrix.Layout layout();
+    
+    
+    
+    /**
+     * Expression consisting of a single matrix.
+     */
+    static final class Leaf extends MatrixExpression {
+        
+        /**
+         * Matrix to read.
+         */
+        private final Matrix matrix;
+        
+        
+        
+        /**
+         * Constructs a new expression reading the given matrix.
+         * 
+         * @param matrix matrix to read
+         */
+        Leaf(Matrix matrix) {
+            super(matrix.getHeight(), matrix.getWidth());
+            this.matrix = matrix;
+        }
+        
+        
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void evaluate(int row, int from, int length,
+                double[] result, int offset, double[][] buffers, int level) {
+            
+            final MatrixStorage storage = matrix.storage();
+            final double[] array = storage.rowArray(row);
+            
+            if(array != null) {
+                System.arraycopy(array, storage.rowOffset(row) + from,
+                        result, offset, length);
+            } else {
+                for(int i=0; i<length; i++) {
+                    result[offset + i] = storage.get(row, from + i);
+                }
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int levels() {
+            return 0;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean references(Matrix other) {
+            return matrix.sharesStorage(other);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean overlaps(Matrix other) {
+            return matrix.overlaps(other);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Matrix.Layout layout() {
+            return matrix.getLayout();
+        }
+    }
+    
+    /**
+     * Expression applying an operator on every element of another
+     * expression.
+     */
+    private static final class Unary extends MatrixExpression {
+        
+        /**
+         * Expression to apply the operator on.
+         */
+        private final MatrixExpression operand;
+        /**
+         * Operator to apply on every element.
+         */
+        private final DoubleUnaryOperator operator;
+        /**
+         * Factor if the operator is a scalar multiplication, NaN otherwise.
+         * Scalar multiplications get their own loop without the functional
+         * interface in between.
+         */
+        private final double factor;
+        
+        
+        
+        /**
+         * Constructs a new expression applying the given operator.
+         * 
+         * @param operand expression to apply the operator on
+         * @param operator operator to apply on every element
+         * @param factor factor if the operator is a scalar multiplication,
+         * NaN otherwise
+         */
+        Unary(MatrixExpression operand, DoubleUnaryOperator operator,
+                double factor) {
+            super(operand.getHeight(), operand.getWidth());
+            this.operand = operand;
+            this.operator = operator;
+            this.factor = factor;
+        }
+        
+        
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void evaluate(int row, int from, int length,
+                double[] result, int offset, double[][] buffers, int level) {
+            
+            operand.evaluate(row, from, length, result, offset,
+                    buffers, level);
+            
+            if(!Double.isNaN(factor)) {
+                for(int i=offset; i<offset+length; i++) {
+                    result[i] *= factor;
+                }
+            } else {
+                for(int i=offset; i<offset+length; i++) {
+                    result[i] = operator.applyAsDouble(result[i]);
+                }
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int levels() {
+            return operand.levels();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean references(Matrix matrix) {
+            return operand.references(matrix);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean overlaps(Matrix matrix) {
+            return operand.overlaps(matrix);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Matrix.Layout layout() {
+            return operand.layout();
+        }
+    }
+    
+    /**
+     * Expression combining two expressions elementwise.
+     */
+    private static final class Binary extends MatrixExpression {
+        
+        /**
+         * Operation to apply.
+         */
+        private final Elementwise.Operation operation;
+        /**
+         * Operands.
+         */
+        private final MatrixExpression left, right;
+        
+        
+        
+        /**
+         * Constructs a new expression combining the given expressions.
+         * 
+         * @param operation operation to apply
+         * @param left first operand
+         * @param right second operand
+         * @throws ArithmeticException if the dimensions of the operands
+         * differ
+         */
+        Binary(Elementwise.Operation operation,
+                MatrixExpression left, MatrixExpression right) {
+            super(left.getHeight(), left.getWidth());
+            if(left.getHeight() != right.getHeight()
+                    || left.getWidth() != right.getWidth()) {
+                throw new ArithmeticException("dimensions must agree");
+            }
+            
+            this.operation = operation;
+            this.left = left;
+            this.right = right;
+        }
+        
+        
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void evaluate(int row, int from, int length,
+                double[] result, int offset, double[][] buffers, int level) {
+            
+            left.evaluate(row, from, length, result, offset, buffers, level);
+            final double[] b = buffers[level];
+            right.evaluate(row, from, length, b, 0, buffers, level + 1);
+            
+            switch(operation) {
+                case ADD:
+                    for(int i=0; i<length; i++) {
+                        result[offset + i] += b[i];
+                    }
+                    break;
+                case SUBTRACT:
+                    for(int i=0; i<length; i++) {
+                        result[offset + i] -= b[i];
+                    }
+                    break;
+                case MULTIPLY:
+                    for(int i=0; i<length; i++) {
+                        result[offset + i] *= b[i];
+                    }
+                    break;
+                case DIVIDE:
+                    for(int i=0; i<length; i++) {
+                        result[offset + i] /= b[i];
+                    }
+                    break;
+                default:
+                    throw new AssertionError(operation);
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int levels() {
+            return Math.max(left.levels(), right.levels() + 1);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean references(Matrix matrix) {
+            return left.references(matrix) || right.references(matrix);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        boolean overlaps(Matrix matrix) {
+            return left.overlaps(matrix) || right.overlaps(matrix);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        Matrix.Layout layout() {
+            return left.layout();
+        }
+    }
+}
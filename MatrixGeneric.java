@@ -28,6 +28,9 @@ package matrix;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -138,6 +141,23 @@ public class MatrixGeneric<E> implements Iterable<E> {
         set(function);
     }
     
+    /**
+     * Constructs a new matrix with <code>height</code> rows and
+     * <code>width</code> columns and fills the elements with the given
+     * function.
+     * The function receives the unboxed row and column indices of the current
+     * element to calculate.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param function function that recieves the indices of the element it
+     * shall calculate
+     */
+    public MatrixGeneric(int height, int width, IntIntFunction<E> function) {
+        this(height, width);
+        set(function);
+    }
+    
     /**
      * Constructs a new matrix with <code>height</code> rows and
      * <code>width</code> columns.
@@ -155,6 +175,51 @@ public class MatrixGeneric<E> implements Iterable<E> {
     
     
     
+    /**
+     * Reads a matrix in the binary format written by
+     * {@link #writeTo(WritableByteChannel)} from the given channel.
+     * Only elements of the standard value types ({@link String}, the boxed
+     * primitives, {@link java.math.BigInteger} and
+     * {@link java.math.BigDecimal}) are accepted, use
+     * {@link #readFrom(ReadableByteChannel, Class)} for other types.
+     * 
+     * @param <E> type of the elements
+     * @param channel channel to read from
+     * @return matrix read
+     * @throws IOException if an I/O error occurs, the data is not a generic
+     * matrix of a supported version, is corrupted or an element is not of a
+     * standard value type
+     */
+    public static <E> MatrixGeneric<E> readFrom(ReadableByteChannel channel)
+            throws IOException {
+        return BinaryFormat.readGeneric(channel, null);
+    }
+    
+    /**
+     * Reads a matrix in the binary format written by
+     * {@link #writeTo(WritableByteChannel)} from the given channel.
+     * Besides the standard value types only elements of the given class or
+     * one of its subclasses are accepted, other classes in the data are
+     * rejected before they are initialized.
+     * 
+     * @param <E> type of the elements
+     * @param channel channel to read from
+     * @param type class of the elements, neither {@link Object} nor an
+     * interface
+     * @return matrix read
+     * @throws IllegalArgumentException if the type is {@link Object} or an
+     * interface, which would accept almost any class
+     * @throws IOException if an I/O error occurs, the data is not a generic
+     * matrix of a supported version, is corrupted or an element is not of an
+     * accepted type
+     */
+    public static <E> MatrixGeneric<E> readFrom(ReadableByteChannel channel,
+            Class<E> type) throws IOException {
+        return BinaryFormat.readGeneric(channel, type);
+    }
+    
+    
+    
     /**
      * Returns the number of rows.
      * 
@@ -229,6 +294,17 @@ public class MatrixGeneric<E> implements Iterable<E> {
         forEachIndices((j, i) -> set(j, i, function.apply(j, i)));
     }
     
+    /**
+     * Replaces all elements with the values returned from the given function.
+     * It recieves the unboxed position (row and column indices) of the
+     * element to replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void set(IntIntFunction<E> function) {
+        forEachIndices((j, i) -> set(j, i, function.apply(j, i)));
+    }
+    
     /**
      * Replaces all elements with the values of the given matrix.
      * 
@@ -250,21 +326,48 @@ public class MatrixGeneric<E> implements Iterable<E> {
         forEachIndicesParallel((j, i) -> set(j, i, function.apply(j, i)));
     }
     
+    /**
+     * Replaces all elements with the values returned from the given function
+     * in parallel.
+     * It recieves the unboxed position (row and column indices) of the
+     * element to replace as arguments.
+     * 
+     * @param function function to calculate new values for all elements
+     */
+    public void setParallel(IntIntFunction<E> function) {
+        forEachIndicesParallel((j, i) -> set(j, i, function.apply(j, i)));
+    }
+    
     
     
     /**
      * Returns the transpose of this matrix.
+     * The transpose is calculated tile by tile, so both matricies are
+     * accessed cache friendly.
      * 
      * @return Transpose of this matrix.
      */
     public MatrixGeneric<E> transpose() {
         final MatrixGeneric<E> result =
                 new MatrixGeneric<>(getWidth(), getHeight());
-        result.setParallel((j, i) -> get(i, j));
+        Transpose.transpose(data, result.data, getHeight(), getWidth());
         
         return result;
     }
     
+    /**
+     * Transposes this square matrix in place.
+     * 
+     * @throws ArithmeticException if this matrix is not square
+     */
+    public void transposeInPlace() {
+        if(getHeight() != getWidth()) {
+            throw new ArithmeticException("matrix must be square");
+        }
+        
+        Transpose.transposeSquare(data, getHeight());
+    }
+    
     
     
     /**
@@ -523,6 +626,17 @@ public class MatrixGeneric<E> implements Iterable<E> {
      * @param consumer consumer to be applied on all available indices
      */
     public void forEachIndices(BiConsumer<Integer, Integer> consumer) {
+        forEachIndices((IntIntConsumer)consumer::accept);
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix in
+     * the same order as the iterator traverses them.
+     * The indices are passed unboxed.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndices(IntIntConsumer consumer) {
         for(int j=0; j<getHeight(); j++) {
             for(int i=0; i<getWidth(); i++) {
                 consumer.accept(j, i);
@@ -537,9 +651,23 @@ public class MatrixGeneric<E> implements Iterable<E> {
      * @param consumer consumer to be applied on all available indices
      */
     public void forEachIndicesParallel(BiConsumer<Integer, Integer> consumer) {
-        IntStream.range(0, getHeight()).parallel().forEach((j) ->
-                IntStream.range(0, getWidth()).parallel().forEach((i) ->
-                        consumer.accept(j, i)));
+        forEachIndicesParallel((IntIntConsumer)consumer::accept);
+    }
+    
+    /**
+     * Applies the given consumer to all available indices in this matrix in
+     * parallel.
+     * The rows are processed in parallel, the elements of a row one after
+     * another. The indices are passed unboxed.
+     * 
+     * @param consumer consumer to be applied on all available indices
+     */
+    public void forEachIndicesParallel(IntIntConsumer consumer) {
+        IntStream.range(0, getHeight()).parallel().forEach((j) -> {
+            for(int i=0; i<getWidth(); i++) {
+                consumer.accept(j, i);
+            }
+        });
     }
     
     
@@ -564,6 +692,21 @@ public class MatrixGeneric<E> implements Iterable<E> {
         return image;
     }
     
+    /**
+     * Writes this matrix to the given channel in a compact binary format.
+     * A 32 byte header with a magic number, the version, the data type, the
+     * dimensions and a CRC-32 checksum is followed by the elements in
+     * row-major order, stored with Java serialization.
+     * 
+     * @param channel channel to write to
+     * @throws IOException if an I/O error occurs or an element is not
+     * serializable
+     * @see #readFrom(ReadableByteChannel)
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        BinaryFormat.write(this, channel);
+    }
+    
     /**
      * Returns a copy of this matrix in 2 dimensional array form
      * 
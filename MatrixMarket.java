@@ -0,0 +1,760 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Reader and writer for matricies in the MatrixMarket exchange format.
+ * Dense matricies are written in the array format, sparse matricies in the
+ * coordinate format, both formats can be read into either.
+ * The files are streamed, so the elements can be read directly into a
+ * memory-mapped matrix larger than the main memory.
+ * The array format lists the elements column by column, therefore they are
+ * transferred in stripes of columns so the row-major storage is accessed
+ * mostly sequentially.
+ * Supported are the fields real, double, integer and pattern and the
+ * symmetries general, symmetric and skew-symmetric.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class MatrixMarket {
+    
+    /**
+     * Size of the buffer the file is read with.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Maximum number of elements of a stripe of columns.
+     */
+    private static final int STRIPE_SIZE = 1 << 20;
+    /**
+     * Number of values or rows formatted by a single task when writing.
+     */
+    private static final int WRITE_SIZE = 1 << 12;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private MatrixMarket() {}
+    
+    
+    
+    /**
+     * Header of a MatrixMarket file.
+     */
+    private static class Header {
+        
+        /**
+         * If the file is in the coordinate format (or else array format).
+         */
+        boolean coordinate;
+        /**
+         * If the entries have no values but are all one.
+         */
+        boolean pattern;
+        /**
+         * If only the lower triangle is stored and mirrored to the upper.
+         */
+        boolean symmetric;
+        /**
+         * If the mirrored elements are negated and the diagonal is zero.
+         */
+        boolean skew;
+        /**
+         * Dimensions of the matrix.
+         */
+        int height, width;
+        /**
+         * Number of entries of the coordinate format.
+         */
+        int entries;
+    }
+    
+    /**
+     * Growable lists of row indices, column indices and values.
+     */
+    private static class Triplets {
+        
+        /**
+         * Indices of the elements.
+         */
+        int[] rows, columns;
+        /**
+         * Values of the elements.
+         */
+        double[] values;
+        /**
+         * Number of elements.
+         */
+        int size = 0;
+        
+        
+        
+        /**
+         * Constructs new empty lists.
+         * 
+         * @param capacity initial capacity
+         */
+        Triplets(int capacity) {
+            rows = new int[capacity];
+            columns = new int[capacity];
+            values = new double[capacity];
+        }
+        
+        
+        
+        /**
+         * Appends an element.
+         * 
+         * @param row row index
+         * @param column column index
+         * @param value value
+         */
+        void add(int row, int column, double value) {
+            if(size == rows.length) {
+                final int capacity = Math.max(16, 2 * size);
+                rows = Arrays.copyOf(rows, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            
+            rows[size] = row;
+            columns[size] = column;
+            values[size++] = value;
+        }
+        
+        /**
+         * Builds a sparse matrix from the elements.
+         * 
+         * @param height number of rows
+         * @param width number of columns
+         * @return new sparse matrix
+         */
+        SparseMatrix toSparseMatrix(int height, int width) {
+            return SparseMatrix.fromTriplets(height, width,
+                    Arrays.copyOf(rows, size), Arrays.copyOf(columns, size),
+                    Arrays.copyOf(values, size));
+        }
+    }
+    
+    /**
+     * Splits a file into whitespace separated tokens.
+     */
+    private static class Tokenizer implements Closeable {
+        
+        /**
+         * Stream of the file.
+         */
+        private final InputStream in;
+        /**
+         * Buffered bytes.
+         */
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        /**
+         * Position of the next byte and behind the last buffered byte.
+         */
+        private int position = 0, limit = 0;
+        /**
+         * Current line number.
+         */
+        private long line = 1;
+        
+        
+        
+        /**
+         * Opens the given file.
+         * 
+         * @param path file to read
+         * @throws IOException if the file can't be opened
+         */
+        Tokenizer(Path path) throws IOException {
+            in = Files.newInputStream(path);
+        }
+        
+        
+        
+        /**
+         * Moves the remaining bytes to the start of the buffer and reads more.
+         * 
+         * @return if any more bytes were read
+         * @throws IOException if an I/O error occurs or a token does not fit
+         * into the buffer
+         */
+        private boolean fill() throws IOException {
+            if(position == 0 && limit == buffer.length) {
+                throw new IOException("line " + line + " is too long");
+            }
+            
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            
+            final int read = in.read(buffer, limit, buffer.length - limit);
+            if(read <= 0) {
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+        
+        /**
+         * Skips whitespace up to the next token.
+         * 
+         * @return if there is another token
+         * @throws IOException if an I/O error occurs
+         */
+        private boolean skipWhitespace() throws IOException {
+            while(true) {
+                for(; position<limit; position++) {
+                    final byte b = buffer[position];
+                    if(b == '\n') {
+                        line++;
+                    } else if(b != ' ' && b != '\t' && b != '\r') {
+                        return true;
+                    }
+                }
+                if(!fill()) {
+                    return false;
+                }
+            }
+        }
+        
+        /**
+         * Buffers the next token and returns the position behind it.
+         * 
+         * @return position behind the next token
+         * @throws IOException if an I/O error occurs or there are no more
+         * tokens
+         */
+        private int token() throws IOException {
+            if(!skipWhitespace()) {
+                throw new IOException("line " + line
+                        + ": unexpected end of file");
+            }
+            
+            int end = position;
+            while(true) {
+                for(; end<limit; end++) {
+                    final byte b = buffer[end];
+                    if(b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+                        return end;
+                    }
+                }
+                final int start = position;
+                if(!fill()) {
+                    return limit;
+                }
+                end -= start;
+            }
+        }
+        
+        /**
+         * Returns the next line with leading whitespace removed.
+         * 
+         * @return next line or null at the end of the file
+         * @throws IOException if an I/O error occurs
+         */
+        String nextLine() throws IOException {
+            if(!skipWhitespace()) {
+                return null;
+            }
+            
+            int end = position;
+            while(true) {
+                for(; end<limit && buffer[end] != '\n'; end++);
+                if(end < limit) {
+                    break;
+                }
+                final int start = position;
+                if(!fill()) {
+                    break;
+                }
+                end -= start;
+            }
+            
+            final String text = new String(buffer, position, end - position,
+                    StandardCharsets.ISO_8859_1).trim();
+            position = end;
+            return text;
+        }
+        
+        /**
+         * Returns the first character of the next token without consuming it.
+         * 
+         * @return next character or -1 at the end of the file
+         * @throws IOException if an I/O error occurs
+         */
+        int peek() throws IOException {
+            return skipWhitespace() ? buffer[position] : -1;
+        }
+        
+        /**
+         * Parses the next token as a number.
+         * 
+         * @return next number
+         * @throws IOException if an I/O error occurs, there are no more tokens
+         * or the token is not a number
+         */
+        double nextDouble() throws IOException {
+            final int end = token();
+            
+            try {
+                final double value = DoubleParser.parse(buffer, position, end);
+                position = end;
+                return value;
+            } catch(NumberFormatException ex) {
+                throw new IOException("line " + line + ": \""
+                        + new String(buffer, position, end - position,
+                                StandardCharsets.ISO_8859_1)
+                        + "\" is not a number", ex);
+            }
+        }
+        
+        /**
+         * Parses the next token as a non-negative integer.
+         * 
+         * @return next integer
+         * @throws IOException if an I/O error occurs, there are no more tokens
+         * or the token is not a non-negative integer
+         */
+        int nextInt() throws IOException {
+            final int end = token();
+            
+            long value = 0;
+            for(int p=position; p<end && value<=Integer.MAX_VALUE; p++) {
+                final int digit = buffer[p] - '0';
+                if(digit < 0 || digit > 9) {
+                    value = Long.MAX_VALUE;
+                } else {
+                    value = 10*value + digit;
+                }
+            }
+            if(end == position || value > Integer.MAX_VALUE) {
+                throw new IOException("line " + line + ": \""
+                        + new String(buffer, position, end - position,
+                                StandardCharsets.ISO_8859_1)
+                        + "\" is not a valid size or index");
+            }
+            
+            position = end;
+            return (int)value;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+    
+    
+    
+    /**
+     * Reads a dense matrix from the given file.
+     * 
+     * @param path file to read
+     * @param layout layout of the new matrix
+     * @return matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     */
+    static Matrix read(Path path, Matrix.Layout layout) throws IOException {
+        try(Tokenizer in = new Tokenizer(path)) {
+            final Header header = readHeader(in);
+            final Matrix matrix = new Matrix(header.height, header.width,
+                    layout);
+            readDense(in, header, matrix);
+            return matrix;
+        }
+    }
+    
+    /**
+     * Reads a dense matrix from the given file into a new memory-mapped
+     * file.
+     * 
+     * @param path file to read
+     * @param target file to map, replaced if it exists
+     * @return mapped matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     * @see Matrix#map(Path, int, int)
+     */
+    static Matrix read(Path path, Path target) throws IOException {
+        try(Tokenizer in = new Tokenizer(path);
+                FileChannel channel = FileChannel.open(target,
+                        StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            final Header header = readHeader(in);
+            final Matrix matrix = Matrix.map(channel,
+                    FileChannel.MapMode.READ_WRITE, 0,
+                    header.height, header.width);
+            
+            try {
+                readDense(in, header, matrix);
+            } catch(IOException | RuntimeException ex) {
+                matrix.close();
+                throw ex;
+            }
+            return matrix;
+        }
+    }
+    
+    /**
+     * Reads a sparse matrix from the given file.
+     * 
+     * @param path file to read
+     * @return sparse matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     */
+    static SparseMatrix readSparse(Path path) throws IOException {
+        try(Tokenizer in = new Tokenizer(path)) {
+            final Header header = readHeader(in);
+            final int height = header.height;
+            final int width = header.width;
+            
+            if(header.coordinate) {
+                final long capacity = header.symmetric
+                        ? 2L * header.entries : header.entries;
+                final Triplets triplets = new Triplets(
+                        (int)Math.min(capacity, Integer.MAX_VALUE - 8));
+                for(int k=0; k<header.entries; k++) {
+                    final int row = nextIndex(in, height);
+                    final int column = nextIndex(in, width);
+                    final double value = header.pattern ? 1 : in.nextDouble();
+                    
+                    triplets.add(row, column, value);
+                    if(header.symmetric && row != column) {
+                        triplets.add(column, row,
+                                header.skew ? -value : value);
+                    }
+                }
+                return triplets.toSparseMatrix(height, width);
+            } else {
+                final Triplets triplets = new Triplets(16);
+                for(int i=0; i<width; i++) {
+                    for(int j=firstRow(header, i); j<height; j++) {
+                        final double value = in.nextDouble();
+                        if(value != 0) {
+                            triplets.add(j, i, value);
+                            if(header.symmetric && j != i) {
+                                triplets.add(i, j,
+                                        header.skew ? -value : value);
+                            }
+                        }
+                    }
+                }
+                return triplets.toSparseMatrix(height, width);
+            }
+        }
+    }
+    
+    /**
+     * Reads and checks the header, comments and size line of a file.
+     * 
+     * @param in tokenizer of the file
+     * @return header of the file
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     */
+    private static Header readHeader(Tokenizer in) throws IOException {
+        final String line = in.nextLine();
+        final String[] words = (line == null) ? new String[0]
+                : line.toLowerCase(Locale.ROOT).split("\\s+");
+        if(words.length != 5 || !words[0].equals("%%matrixmarket")
+                || !words[1].equals("matrix")) {
+            throw new IOException("not a MatrixMarket matrix file");
+        }
+        
+        final Header header = new Header();
+        switch(words[2]) {
+            case "coordinate": header.coordinate = true; break;
+            case "array": break;
+            default: throw new IOException("unknown format " + words[2]);
+        }
+        switch(words[3]) {
+            case "real": case "double": case "integer": break;
+            case "pattern": header.pattern = true; break;
+            default: throw new IOException("unsupported field " + words[3]);
+        }
+        if(header.pattern && !header.coordinate) {
+            throw new IOException("pattern requires the coordinate format");
+        }
+        switch(words[4]) {
+            case "general": break;
+            case "symmetric": header.symmetric = true; break;
+            case "skew-symmetric":
+                header.symmetric = true;
+                header.skew = true;
+                break;
+            default:
+                throw new IOException("unsupported symmetry " + words[4]);
+        }
+        
+        //Comments
+        while(in.peek() == '%') {
+            in.nextLine();
+        }
+        
+        header.height = in.nextInt();
+        header.width = in.nextInt();
+        if(header.coordinate) {
+            header.entries = in.nextInt();
+        }
+        if(header.symmetric && header.height != header.width) {
+            throw new IOException("symmetric matrix must be square");
+        }
+        
+        return header;
+    }
+    
+    /**
+     * Reads the elements into the given dense matrix, which must be filled
+     * with zeros.
+     * 
+     * @param in tokenizer of the file
+     * @param header header of the file
+     * @param matrix matrix to read into
+     * @throws IOException if an I/O error occurs or an element is invalid
+     */
+    private static void readDense(Tokenizer in, Header header, Matrix matrix)
+            throws IOException {
+        final int height = header.height;
+        final int width = header.width;
+        
+        if(header.coordinate) {
+            for(int k=0; k<header.entries; k++) {
+                final int row = nextIndex(in, height);
+                final int column = nextIndex(in, width);
+                final double value = header.pattern ? 1 : in.nextDouble();
+                
+                matrix.set(row, column, matrix.get(row, column) + value);
+                if(header.symmetric && row != column) {
+                    matrix.set(column, row, matrix.get(column, row)
+                            + (header.skew ? -value : value));
+                }
+            }
+            return;
+        }
+        
+        
+        
+        //Collect a stripe of columns, then store it row by row
+        final int columns = Math.max(1,
+                Math.min(width, STRIPE_SIZE / Math.max(1, height)));
+        final double[] stripe = new double[columns * height];
+        
+        for(int first=0; first<width; first+=columns) {
+            final int count = Math.min(columns, width - first);
+            
+            for(int i=0; i<count; i++) {
+                final int column = first + i;
+                for(int j=firstRow(header, column); j<height; j++) {
+                    final double value = in.nextDouble();
+                    stripe[i*height + j] = value;
+                    //Mirrored elements lie in a row of the matrix
+                    if(header.symmetric && j != column) {
+                        matrix.set(column, j, header.skew ? -value : value);
+                    }
+                }
+            }
+            
+            for(int j=0; j<height; j++) {
+                for(int i=0; i<count; i++) {
+                    if(j >= firstRow(header, first + i)) {
+                        matrix.set(j, first + i, stripe[i*height + j]);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the first row of a column stored in the array format.
+     * 
+     * @param header header of the file
+     * @param column column index
+     * @return index of the first stored row of the column
+     */
+    private static int firstRow(Header header, int column) {
+        if(!header.symmetric) {
+            return 0;
+        }
+        return header.skew ? column + 1 : column;
+    }
+    
+    /**
+     * Reads a one-based index and returns it zero-based.
+     * 
+     * @param in tokenizer of the file
+     * @param size number of valid indices
+     * @return zero-based index
+     * @throws IOException if an I/O error occurs or the index is invalid
+     */
+    private static int nextIndex(Tokenizer in, int size) throws IOException {
+        final int index = in.nextInt();
+        if(index < 1 || index > size) {
+            throw new IOException("line " + in.line + ": index " + index
+                    + " out of bounds");
+        }
+        return index - 1;
+    }
+    
+    
+    
+    /**
+     * Writes the given matrix to a file in the array format.
+     * 
+     * @param matrix matrix to write
+     * @param path file to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(Matrix matrix, Path path) throws IOException {
+        final int height = matrix.getHeight();
+        final int width = matrix.getWidth();
+        
+        try(OutputStream out = open(path)) {
+            out.write(("%%MatrixMarket matrix array real general\n"
+                    + height + " " + width + "\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            
+            final int columns = Math.max(1,
+                    Math.min(width, STRIPE_SIZE / Math.max(1, height)));
+            final double[] stripe = new double[columns * height];
+            
+            for(int first=0; first<width; first+=columns) {
+                final int count = Math.min(columns, width - first);
+                final int column = first;
+                
+                //Gather the stripe row by row, it is column-major then
+                for(int j=0; j<height; j++) {
+                    for(int i=0; i<count; i++) {
+                        stripe[i*height + j] = matrix.get(j, column + i);
+                    }
+                }
+                
+                final int size = count * height;
+                final byte[][] formatted = IntStream.range(0,
+                        (size + WRITE_SIZE - 1) / WRITE_SIZE).parallel()
+                        .mapToObj((k) -> {
+                            final StringBuilder builder = new StringBuilder();
+                            final int to = Math.min(size, (k+1) * WRITE_SIZE);
+                            for(int p=k*WRITE_SIZE; p<to; p++) {
+                                builder.append(stripe[p]).append('\n');
+                            }
+                            return builder.toString()
+                                    .getBytes(StandardCharsets.ISO_8859_1);
+                        })
+                        .toArray(byte[][]::new);
+                for(byte[] bytes : formatted) {
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes the given sparse matrix to a file in the coordinate format.
+     * 
+     * @param matrix sparse matrix to write
+     * @param path file to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(SparseMatrix matrix, Path path) throws IOException {
+        final int height = matrix.getHeight();
+        final int[] pointers = matrix.getRowPointers();
+        final int[] indices = matrix.getColumnIndices();
+        final double[] values = matrix.getValues();
+        
+        try(OutputStream out = open(path)) {
+            out.write(("%%MatrixMarket matrix coordinate real general\n"
+                    + height + " " + matrix.getWidth() + " "
+                    + matrix.getNonZeros() + "\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            
+            final int blocks = (height + WRITE_SIZE - 1) / WRITE_SIZE;
+            final int batch = 4 * ForkJoinPool.getCommonPoolParallelism();
+            
+            //Format a few blocks per core in parallel, write them in order
+            for(int first=0; first<blocks; first+=batch) {
+                final byte[][] formatted = IntStream.range(first,
+                        Math.min(blocks, first + batch)).parallel()
+                        .mapToObj((k) -> {
+                            final StringBuilder builder = new StringBuilder();
+                            final int to = Math.min(height, (k+1)*WRITE_SIZE);
+                            for(int j=k*WRITE_SIZE; j<to; j++) {
+                                for(int p=pointers[j]; p<pointers[j+1]; p++) {
+                                    builder.append(j + 1).append(' ')
+                                            .append(indices[p] + 1).append(' ')
+                                            .append(values[p]).append('\n');
+                                }
+                            }
+                            return builder.toString()
+                                    .getBytes(StandardCharsets.ISO_8859_1);
+                        })
+                        .toArray(byte[][]::new);
+                for(byte[] bytes : formatted) {
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Opens the given file for writing, replacing its content.
+     * 
+     * @param path file to write
+     * @return stream to the file
+     * @throws IOException if the file can't be opened
+     */
+    private static OutputStream open(Path path) throws IOException {
+        return Channels.newOutputStream(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+}
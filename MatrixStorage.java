@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+
+
+/**
+ * Storage backend of a matrix.
+ * The matrix itself only accesses its elements through this class, the
+ * implementations decide how the elements are laid out in memory.
+ * The first index is always the row index and the second index is always the
+ * column index, both zero indexed.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+abstract class MatrixStorage {
+    
+    /**
+     * Returns the element at the specified position.
+     * 
+     * @param row row of the element to return
+     * @param column column of the element to return
+     * @return the element at the specified position
+     */
+    abstract double get(int row, int column);
+    
+    /**
+     * Replaces the element at the specified position with the specified
+     * element.
+     * 
+     * @param row row of the element to set
+     * @param column column of the element to set
+     * @param value element to be stored at the specified position
+     */
+    abstract void set(int row, int column, double value);
+    
+    /**
+     * Returns the array the given row is stored in or <code>null</code> if
+     * the row is not stored contiguously in an array.
+     * The first element of the row is located at
+     * {@link #rowOffset(int)}.
+     * 
+     * @param row row to return the array of
+     * @return array containing the row or <code>null</code>
+     */
+    double[] rowArray(int row) {
+        return null;
+    }
+    
+    /**
+     * Returns the index of the first element of the given row in the array
+     * returned by {@link #rowArray(int)}.
+     * 
+     * @param row row to return the offset of
+     * @return index of the first element of the row
+     */
+    int rowOffset(int row) {
+        return 0;
+    }
+    
+    /**
+     * Returns the layout of this storage.
+     * 
+     * @return layout of this storage
+     */
+    abstract Matrix.Layout getLayout();
+    
+    /**
+     * Creates a new, zero initialized storage with the same layout as this
+     * storage and the given dimensions.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @return new storage with the same layout
+     */
+    abstract MatrixStorage create(int height, int width);
+    
+    /**
+     * Returns a storage for the given block of this storage which shares its
+     * elements with this storage.
+     * 
+     * @param row first row of the block
+     * @param column first column of the block
+     * @param height number of rows of the block
+     * @param width number of columns of the block
+     * @return view of the block
+     */
+    abstract MatrixStorage view(int row, int column, int height, int width);
+    
+    /**
+     * Returns a storage for the transpose of this storage which shares its
+     * elements with this storage.
+     * 
+     * @return transposed view
+     */
+    MatrixStorage transposedView() {
+        return new TransposedStorage(this);
+    }
+    
+    /**
+     * Returns the object the elements are ultimately stored in.
+     * Storages returning the same object may share elements.
+     * 
+     * @return object containing the elements
+     */
+    Object array() {
+        return this;
+    }
+    
+    /**
+     * Returns if the given storage maps every position to the same element
+     * as this storage.
+     * 
+     * @param other storage to compare with
+     * @return true if both storages access the same elements at the same
+     * positions
+     */
+    boolean sameElements(MatrixStorage other) {
+        return this == other;
+    }
+    
+    /**
+     * Releases resources held outside of the heap.
+     * The storage must not be used afterwards.
+     * Does nothing for storages on the heap.
+     */
+    void close() {
+    }
+    
+    
+    
+    /**
+     * Creates a new, zero initialized storage with the given layout and
+     * dimensions.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param layout layout of the new storage
+     * @return new storage
+     */
+    static MatrixStorage create(int height, int width, Matrix.Layout layout) {
+        switch(layout) {
+            case FLAT:
+                return new FlatStorage(height, width);
+            case OFF_HEAP:
+                return new BufferStorage(height, width);
+            case NESTED:
+            default:
+                return new NestedStorage(height, width);
+        }
+    }
+}
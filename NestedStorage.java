@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+
+
+/**
+ * Storage which keeps every row in its own array.
+ * Views of blocks share the arrays and only change the offsets.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+class NestedStorage extends MatrixStorage {
+    
+    /**
+     * Elements of the matrix, one array per row.
+     */
+    private final double[][] data;
+    /**
+     * Index of the first row and the first column in the arrays.
+     */
+    private final int rowOffset, columnOffset;
+    /**
+     * Dimensions of the stored matrix.
+     */
+    private final int height, width;
+    
+    
+    
+    /**
+     * Constructs a new, zero initialized storage with <code>height</code>
+     * rows and <code>width</code> columns.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     */
+    NestedStorage(int height, int width) {
+        this(new double[height][width], 0, 0, height, width);
+    }
+    
+    /**
+     * Constructs a new storage for a block of the given arrays.
+     * 
+     * @param data elements, one array per row
+     * @param rowOffset index of the first row of the block
+     * @param columnOffset index of the first column of the block
+     * @param height number of rows of the block
+     * @param width number of columns of the block
+     */
+    NestedStorage(double[][] data, int rowOffset, int columnOffset,
+            int height, int width) {
+        this.data = data;
+        this.rowOffset = rowOffset;
+        this.columnOffset = columnOffset;
+        this.height = height;
+        this.width = width;
+    }
+    
+    
+    
+    /**
+     * Throws an exception if the specified position is outside of the
+     * stored block.
+     * 
+     * @param row row of the element
+     * @param column column of the element
+     */
+    private void checkIndex(int row, int column) {
+        if(row < 0 || row >= height || column < 0 || column >= width) {
+            throw new IndexOutOfBoundsException(
+                    "(" + row + ", " + column + ")");
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double get(int row, int column) {
+        checkIndex(row, column);
+        return data[rowOffset + row][columnOffset + column];
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void set(int row, int column, double value) {
+        checkIndex(row, column);
+        data[rowOffset + row][columnOffset + column] = value;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double[] rowArray(int row) {
+        return data[rowOffset + row];
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    int rowOffset(int row) {
+        return columnOffset;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Matrix.Layout getLayout() {
+        return Matrix.Layout.NESTED;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage create(int height, int width) {
+        return new NestedStorage(height, width);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage view(int row, int column, int height, int width) {
+        return new NestedStorage(data, rowOffset + row, columnOffset + column,
+                height, width);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object array() {
+        return data;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean sameElements(MatrixStorage other) {
+        if(!(other instanceof NestedStorage)) {
+            return false;
+        }
+        
+        final NestedStorage nested = (NestedStorage)other;
+        return data == nested.data && rowOffset == nested.rowOffset
+                && columnOffset == nested.columnOffset
+                && height == nested.height && width == nested.width;
+    }
+}
@@ -0,0 +1,562 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+
+
+/**
+ * Reader and writer for the NumPy array formats.
+ * A <code>.npy</code> file consists of a magic string, the version, the
+ * length of the header and the header itself, a Python dictionary literal
+ * describing the data type, the order and the shape of the array, padded so
+ * the raw elements start at a multiple of 64 bytes.
+ * A <code>.npz</code> file is a zip archive of <code>.npy</code> files.
+ * Arrays of 32 or 64 bit floats in C (row-major) or Fortran (column-major)
+ * order with up to two dimensions are supported; one dimensional arrays
+ * become column vectors.
+ * Files of little-endian 64 bit floats can be mapped into memory without
+ * copying, as their payload already is in the format of
+ * {@link BufferStorage}.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class NpyFormat {
+    
+    /**
+     * Magic string at the start of every file.
+     */
+    private static final byte[] MAGIC = {
+        (byte)0x93, 'N', 'U', 'M', 'P', 'Y'};
+    /**
+     * Alignment of the payload.
+     */
+    private static final int ALIGNMENT = 64;
+    /**
+     * Size of the buffer the payload is transferred with.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Data type entry of the header: byte order, kind and size.
+     */
+    private static final Pattern DESCR = Pattern.compile(
+            "'descr'\\s*:\\s*'([<>=|]?)([a-zA-Z])(\\d+)'");
+    /**
+     * Order entry of the header.
+     */
+    private static final Pattern FORTRAN_ORDER = Pattern.compile(
+            "'fortran_order'\\s*:\\s*(True|False)");
+    /**
+     * Shape entry of the header, a tuple of dimensions.
+     */
+    private static final Pattern SHAPE = Pattern.compile(
+            "'shape'\\s*:\\s*\\(([^)]*)\\)");
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private NpyFormat() {}
+    
+    
+    
+    /**
+     * Description of the array of a file.
+     */
+    private static class Header {
+        
+        /**
+         * Byte order of the elements.
+         */
+        ByteOrder order;
+        /**
+         * Size of an element in bytes, 4 or 8.
+         */
+        int size;
+        /**
+         * If the elements are stored column by column.
+         */
+        boolean fortran;
+        /**
+         * Dimensions of the matrix.
+         */
+        int height, width;
+        /**
+         * Length of the header in bytes, the position of the payload.
+         */
+        long length;
+    }
+    
+    
+    
+    /**
+     * Reads a matrix from the given file.
+     * 
+     * @param path file to read
+     * @param layout layout of the new matrix
+     * @return matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported array
+     */
+    static Matrix read(Path path, Matrix.Layout layout) throws IOException {
+        try(FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            return read(channel, layout);
+        }
+    }
+    
+    /**
+     * Maps the payload of the given file into memory without copying.
+     * Arrays in Fortran order are mapped as the transposed view of their
+     * transpose.
+     * 
+     * @param path file to map
+     * @param mode mode to map the file with
+     * @return matrix on top of the mapped file
+     * @throws IOException if an I/O error occurs, the file is not a
+     * supported array or its elements are not little-endian 64 bit floats
+     * @see Matrix#map(FileChannel, FileChannel.MapMode, long, int, int)
+     */
+    static Matrix map(Path path, FileChannel.MapMode mode)
+            throws IOException {
+        try(FileChannel channel = (mode == FileChannel.MapMode.READ_WRITE)
+                ? FileChannel.open(path, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ)) {
+            final Header header = readHeader(channel);
+            if(header.size != Double.BYTES
+                    || header.order != ByteOrder.LITTLE_ENDIAN) {
+                throw new IOException(
+                        "only little-endian float64 arrays can be mapped");
+            }
+            
+            final int rows = header.fortran ? header.width : header.height;
+            final int columns = header.fortran ? header.height : header.width;
+            if(channel.size() - header.length
+                    < (long)rows * columns * Double.BYTES) {
+                throw new IOException("file is truncated");
+            }
+            
+            final Matrix matrix = Matrix.map(channel, mode, header.length,
+                    rows, columns);
+            return header.fortran ? matrix.transposeView() : matrix;
+        }
+    }
+    
+    /**
+     * Reads all arrays of the given archive.
+     * 
+     * @param path archive to read
+     * @param layout layout of the new matricies
+     * @return matricies by their names without the <code>.npy</code>
+     * extension, in the order of the archive
+     * @throws IOException if an I/O error occurs or an entry is not a
+     * supported array
+     */
+    static Map<String, Matrix> readArchive(Path path, Matrix.Layout layout)
+            throws IOException {
+        final Map<String, Matrix> matricies = new LinkedHashMap<>();
+        
+        try(InputStream in = Files.newInputStream(path);
+                ZipInputStream zip = new ZipInputStream(in)) {
+            //The channel must not be closed, it would close the archive
+            final ReadableByteChannel channel = Channels.newChannel(zip);
+            
+            for(ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                String name = entry.getName();
+                if(entry.isDirectory()) {
+                    continue;
+                }
+                if(name.endsWith(".npy")) {
+                    name = name.substring(0, name.length() - 4);
+                }
+                
+                try {
+                    matricies.put(name, read(channel, layout));
+                } catch(IOException ex) {
+                    throw new IOException(entry.getName() + ": "
+                            + ex.getMessage(), ex);
+                }
+            }
+        }
+        
+        return matricies;
+    }
+    
+    /**
+     * Reads a matrix from the channel.
+     * 
+     * @param channel channel to read from
+     * @param layout layout of the new matrix
+     * @return matrix read
+     * @throws IOException if an I/O error occurs or the data is not a
+     * supported array
+     */
+    private static Matrix read(ReadableByteChannel channel,
+            Matrix.Layout layout) throws IOException {
+        final Header header = readHeader(channel);
+        final int size = header.size;
+        final int rows = header.height;
+        final int columns = header.width;
+        
+        final Matrix matrix = new Matrix(rows, columns, layout);
+        if(header.fortran) {
+            readColumns(channel, header, matrix);
+            return matrix;
+        }
+        
+        final MatrixStorage storage = matrix.storage();
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(BUFFER_SIZE).order(header.order);
+        buffer.limit(0);
+        
+        long remaining = (long)rows * columns * size;
+        for(int j=0; j<rows; j++) {
+            final double[] row = storage.rowArray(j);
+            final int offset = storage.rowOffset(j);
+            
+            for(int i=0; i<columns; ) {
+                if(!buffer.hasRemaining()) {
+                    buffer.clear();
+                    buffer.limit((int)Math.min(buffer.capacity(),
+                            remaining));
+                    BinaryFormat.readFully(channel, buffer);
+                    remaining -= buffer.position();
+                    buffer.flip();
+                }
+                
+                final int count =
+                        Math.min(columns - i, buffer.remaining() / size);
+                if(row != null && size == Double.BYTES) {
+                    buffer.asDoubleBuffer().get(row, offset + i, count);
+                    buffer.position(buffer.position() + count*size);
+                } else {
+                    for(int k=0; k<count; k++) {
+                        final double value = (size == Double.BYTES)
+                                ? buffer.getDouble() : buffer.getFloat();
+                        if(row != null) {
+                            row[offset + i + k] = value;
+                        } else {
+                            storage.set(j, i + k, value);
+                        }
+                    }
+                }
+                i += count;
+            }
+        }
+        
+        return matrix;
+    }
+    
+    /**
+     * Reads the elements of an array in Fortran order directly into their
+     * positions in the given matrix, without a transposed copy.
+     * As many whole columns as fit into the buffer are read at once and
+     * scattered into the rows, so every row is written in runs of
+     * consecutive elements. Columns larger than the buffer are read in
+     * parts.
+     * 
+     * @param channel channel to read from
+     * @param header header of the array
+     * @param matrix matrix with the dimensions of the array to read into
+     * @throws IOException if an I/O error occurs
+     */
+    private static void readColumns(ReadableByteChannel channel,
+            Header header, Matrix matrix) throws IOException {
+        final int size = header.size;
+        final int rows = matrix.getHeight();
+        final int columns = matrix.getWidth();
+        final MatrixStorage storage = matrix.storage();
+        
+        final long columnBytes = (long)rows * size;
+        if(columnBytes > BUFFER_SIZE) {
+            final ByteBuffer buffer =
+                    ByteBuffer.allocate(BUFFER_SIZE).order(header.order);
+            buffer.limit(0);
+            
+            long remaining = columnBytes * columns;
+            for(int i=0; i<columns; i++) {
+                for(int j=0; j<rows; j++) {
+                    if(!buffer.hasRemaining()) {
+                        buffer.clear();
+                        buffer.limit((int)Math.min(buffer.capacity(),
+                                remaining));
+                        BinaryFormat.readFully(channel, buffer);
+                        remaining -= buffer.position();
+                        buffer.flip();
+                    }
+                    
+                    storage.set(j, i, (size == Double.BYTES)
+                            ? buffer.getDouble() : buffer.getFloat());
+                }
+            }
+            return;
+        }
+        
+        final int block = (int)Math.min(columns,
+                BUFFER_SIZE / Math.max(1, columnBytes));
+        final ByteBuffer buffer = ByteBuffer.allocate((int)(block
+                * columnBytes)).order(header.order);
+        for(int i0=0; i0<columns; i0+=block) {
+            final int count = Math.min(block, columns - i0);
+            buffer.clear();
+            buffer.limit((int)(count * columnBytes));
+            BinaryFormat.readFully(channel, buffer);
+            
+            for(int j=0; j<rows; j++) {
+                final double[] row = storage.rowArray(j);
+                final int offset = storage.rowOffset(j) + i0;
+                
+                for(int k=0; k<count; k++) {
+                    final int index = (k*rows + j) * size;
+                    final double value = (size == Double.BYTES)
+                            ? buffer.getDouble(index)
+                            : buffer.getFloat(index);
+                    if(row != null) {
+                        row[offset + k] = value;
+                    } else {
+                        storage.set(j, i0 + k, value);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Reads and parses the header of an array.
+     * 
+     * @param channel channel to read from
+     * @return parsed header
+     * @throws IOException if an I/O error occurs or the data is not a
+     * supported array
+     */
+    private static Header readHeader(ReadableByteChannel channel)
+            throws IOException {
+        final ByteBuffer start =
+                ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.readFully(channel, start);
+        for(int k=0; k<MAGIC.length; k++) {
+            if(start.get(k) != MAGIC[k]) {
+                throw new IOException("not a NumPy array");
+            }
+        }
+        
+        final int version = start.get(6);
+        if(version < 1 || version > 3) {
+            throw new IOException("unsupported version " + version);
+        }
+        final ByteBuffer length = ByteBuffer.allocate((version == 1) ? 2 : 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        BinaryFormat.readFully(channel, length);
+        final long textLength = (version == 1)
+                ? length.getShort(0) & 0xFFFF
+                : length.getInt(0) & 0xFFFFFFFFL;
+        if(textLength > Integer.MAX_VALUE) {
+            throw new IOException("header is too long");
+        }
+        
+        final ByteBuffer bytes = ByteBuffer.allocate((int)textLength);
+        BinaryFormat.readFully(channel, bytes);
+        final String text = new String(bytes.array(),
+                (version == 3) ? StandardCharsets.UTF_8
+                        : StandardCharsets.ISO_8859_1);
+        
+        
+        
+        final Header header = new Header();
+        header.length = 8 + length.capacity() + textLength;
+        
+        final Matcher descr = DESCR.matcher(text);
+        if(!descr.find() || !descr.group(2).equals("f")
+                || !(descr.group(3).equals("4")
+                        || descr.group(3).equals("8"))) {
+            throw new IOException("unsupported data type, "
+                    + "only float32 and float64 are supported");
+        }
+        switch(descr.group(1)) {
+            case ">": header.order = ByteOrder.BIG_ENDIAN; break;
+            case "<": header.order = ByteOrder.LITTLE_ENDIAN; break;
+            default: header.order = ByteOrder.nativeOrder(); break;
+        }
+        header.size = Integer.parseInt(descr.group(3));
+        
+        final Matcher fortran = FORTRAN_ORDER.matcher(text);
+        if(!fortran.find()) {
+            throw new IOException("order missing in header");
+        }
+        header.fortran = fortran.group(1).equals("True");
+        
+        final Matcher shape = SHAPE.matcher(text);
+        if(!shape.find()) {
+            throw new IOException("shape missing in header");
+        }
+        final int[] dimensions = new int[2];
+        int count = 0;
+        for(String dimension : shape.group(1).split(",")) {
+            dimension = dimension.trim();
+            if(dimension.endsWith("L")) {
+                dimension = dimension.substring(0, dimension.length() - 1);
+            }
+            if(dimension.isEmpty()) {
+                continue;
+            }
+            if(count == dimensions.length) {
+                throw new IOException(
+                        "only 1 and 2 dimensional arrays are supported");
+            }
+            try {
+                dimensions[count++] = Integer.parseInt(dimension);
+            } catch(NumberFormatException ex) {
+                throw new IOException("invalid shape " + shape.group(), ex);
+            }
+        }
+        
+        switch(count) {
+            case 0: header.height = header.width = 1; break;
+            case 1: header.height = dimensions[0]; header.width = 1; break;
+            default:
+                header.height = dimensions[0];
+                header.width = dimensions[1];
+                break;
+        }
+        if(header.height < 0 || header.width < 0) {
+            throw new IOException("invalid shape " + shape.group());
+        }
+        
+        return header;
+    }
+    
+    
+    
+    /**
+     * Writes the given matrix to a file as a C order float64 array.
+     * 
+     * @param matrix matrix to write
+     * @param path file to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void write(Matrix matrix, Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(matrix, channel);
+        }
+    }
+    
+    /**
+     * Writes the given matricies to an archive, one entry per matrix named
+     * after its key.
+     * The entries are deflated without compression, as the elements of most
+     * matricies hardly compress. Unlike stored entries they don't need their
+     * checksum in advance, so every matrix is encoded only once.
+     * 
+     * @param matricies matricies by name
+     * @param path archive to write
+     * @throws IOException if an I/O error occurs
+     */
+    static void writeArchive(Map<String, Matrix> matricies, Path path)
+            throws IOException {
+        try(OutputStream out = Files.newOutputStream(path);
+                ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            //The channel must not be closed, it would close the archive
+            final WritableByteChannel channel = Channels.newChannel(zip);
+            
+            for(Map.Entry<String, Matrix> entry : matricies.entrySet()) {
+                zip.putNextEntry(new ZipEntry(entry.getKey() + ".npy"));
+                write(entry.getValue(), channel);
+                zip.closeEntry();
+            }
+        }
+    }
+    
+    /**
+     * Writes the header and the elements of the given matrix to the channel.
+     * 
+     * @param matrix matrix to write
+     * @param channel channel to write to
+     * @throws IOException if an I/O error occurs
+     */
+    private static void write(Matrix matrix, WritableByteChannel channel)
+            throws IOException {
+        BinaryFormat.writeFully(channel, header(matrix));
+        BinaryFormat.encode(matrix,
+                ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN),
+                (bytes) -> BinaryFormat.writeFully(channel, bytes));
+    }
+    
+    /**
+     * Returns the header of a C order float64 array with the dimensions of
+     * the given matrix, padded to the alignment.
+     * 
+     * @param matrix matrix to describe
+     * @return header ready to be written
+     */
+    private static ByteBuffer header(Matrix matrix) {
+        final StringBuilder text = new StringBuilder("{'descr': '<f8', "
+                + "'fortran_order': False, 'shape': (" + matrix.getHeight()
+                + ", " + matrix.getWidth() + "), }");
+        while((MAGIC.length + 4 + text.length() + 1) % ALIGNMENT != 0) {
+            text.append(' ');
+        }
+        text.append('\n');
+        
+        final ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4
+                + text.length()).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).put((byte)1).put((byte)0)
+                .putShort((short)text.length())
+                .put(text.toString().getBytes(StandardCharsets.ISO_8859_1));
+        header.flip();
+        
+        return header;
+    }
+}
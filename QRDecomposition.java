@@ -0,0 +1,409 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+
+
+/**
+ * QR decomposition of a matrix with at least as many rows as columns.
+ * The matrix is decomposed into <code>A = Q*R</code> with Householder
+ * reflections, where <code>Q</code> is orthogonal and <code>R</code> is upper
+ * triangular.
+ * 
+ * The columns are processed in blocks. The reflections of a block are
+ * accumulated into the compact WY form <code>I - V*T*V^T</code>, so the
+ * update of the remaining columns consists of matrix multiplications.
+ * The reflection vectors are stored below the diagonal of a flat copy of the
+ * matrix, <code>R</code> on and above it.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class QRDecomposition {
+    
+    /**
+     * Number of columns of a block.
+     */
+    private static final int BLOCK_SIZE = 32;
+    
+    
+    
+    /**
+     * Dimensions of the decomposed matrix.
+     */
+    private final int height, width;
+    /**
+     * Reflection vectors below the diagonal (with an implicit one on the
+     * diagonal) and <code>R</code> on and above it, in row-major order.
+     */
+    private final double[] qr;
+    /**
+     * Scalar factors of the reflections <code>I - tau*v*v^T</code>.
+     */
+    private final double[] tau;
+    
+    
+    
+    /**
+     * Calculates the QR decomposition of the given matrix.
+     * 
+     * @param matrix matrix to decompose
+     * @throws ArithmeticException if the matrix has less rows than columns
+     */
+    public QRDecomposition(Matrix matrix) {
+        if(matrix.getHeight() < matrix.getWidth()) {
+            throw new ArithmeticException("QR decomposition only defined for "
+                    + "matricies with at least as many rows as columns");
+        }
+        
+        height = matrix.getHeight();
+        width = matrix.getWidth();
+        qr = matrix.toFlatArray();
+        tau = new double[width];
+        
+        for(int k0=0; k0<width; k0+=BLOCK_SIZE) {
+            final int k1 = Math.min(width, k0 + BLOCK_SIZE);
+            
+            decomposePanel(k0, k1);
+            if(k1 < width) {
+                updateTrailing(k0, k1);
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Decomposes the columns of a block unblocked, the reflections are only
+     * applied to the columns of the block.
+     * 
+     * @param k0 first column of the block (inclusive)
+     * @param k1 last column of the block (exclusive)
+     */
+    private void decomposePanel(int k0, int k1) {
+        final double[] w = new double[k1 - k0];
+        
+        for(int k=k0; k<k1; k++) {
+            //Norm of the column below the diagonal, scaled against overflow
+            double scale = 0;
+            for(int j=k; j<height; j++) {
+                scale = Math.max(scale, Math.abs(qr[j*width + k]));
+            }
+            
+            if(scale == 0) {
+                tau[k] = 0;
+                continue;
+            }
+            
+            double sum = 0;
+            for(int j=k; j<height; j++) {
+                final double value = qr[j*width + k] / scale;
+                sum += value * value;
+            }
+            
+            final double alpha = qr[k*width + k];
+            final double beta = -Math.copySign(scale * Math.sqrt(sum), alpha);
+            tau[k] = (beta - alpha) / beta;
+            final double factor = 1 / (alpha - beta);
+            for(int j=k+1; j<height; j++) {
+                qr[j*width + k] *= factor;
+            }
+            qr[k*width + k] = beta;
+            
+            
+            
+            //Apply the reflection to the remaining columns of the block
+            final int columns = k1 - k - 1;
+            if(columns == 0) {
+                continue;
+            }
+            
+            for(int i=0; i<columns; i++) {
+                w[i] = qr[k*width + k+1 + i];
+            }
+            for(int j=k+1; j<height; j++) {
+                final double v = qr[j*width + k];
+                for(int i=0; i<columns; i++) {
+                    w[i] += v * qr[j*width + k+1 + i];
+                }
+            }
+            
+            for(int i=0; i<columns; i++) {
+                qr[k*width + k+1 + i] -= tau[k] * w[i];
+            }
+            for(int j=k+1; j<height; j++) {
+                final double v = tau[k] * qr[j*width + k];
+                for(int i=0; i<columns; i++) {
+                    qr[j*width + k+1 + i] -= v * w[i];
+                }
+            }
+        }
+    }
+    
+    /**
+     * Applies the reflections of a block to all columns right of it with the
+     * compact WY form: <code>C -= V * T^T * (V^T * C)</code>.
+     * 
+     * @param k0 first column of the block (inclusive)
+     * @param k1 last column of the block (exclusive)
+     */
+    private void updateTrailing(int k0, int k1) {
+        final int rows = height - k0;
+        final int block = k1 - k0;
+        final int columns = width - k1;
+        
+        //Explicit V and V^T with the unit diagonal and zeros above it
+        final double[] v = new double[Math.multiplyExact(rows, block)];
+        final double[] vt = new double[v.length];
+        for(int j=0; j<rows; j++) {
+            for(int i=0; i<block && i<=j; i++) {
+                final double value =
+                        (i == j) ? 1 : qr[(k0 + j)*width + k0 + i];
+                v[j*block + i] = value;
+                vt[i*rows + j] = value;
+            }
+        }
+        
+        final double[] t = triangularFactor(k0, k1, v);
+        
+        
+        
+        final Matrix c = new Matrix(rows, columns, new FlatStorage(
+                rows, columns, qr, k0*width + k1, width));
+        
+        final Matrix w = new Matrix(block, columns, Matrix.Layout.FLAT);
+        Gemm.multiplyParallel(new Matrix(block, rows,
+                new FlatStorage(block, rows, vt, 0, rows)), c, w);
+        
+        //W = -T^T * W, T is upper triangular so go from the bottom up
+        for(int j=block-1; j>=0; j--) {
+            for(int i=0; i<columns; i++) {
+                double sum = 0;
+                for(int p=0; p<=j; p++) {
+                    sum += t[p*block + j] * w.get(p, i);
+                }
+                w.set(j, i, -sum);
+            }
+        }
+        
+        Gemm.multiplyParallel(new Matrix(rows, block,
+                new FlatStorage(rows, block, v, 0, block)), w, c);
+    }
+    
+    /**
+     * Calculates the upper triangular factor <code>T</code> of the compact
+     * WY form of the reflections of a block.
+     * 
+     * @param k0 first column of the block (inclusive)
+     * @param k1 last column of the block (exclusive)
+     * @param v explicit reflection vectors of the block in row-major order
+     * @return triangular factor in row-major order
+     */
+    private double[] triangularFactor(int k0, int k1, double[] v) {
+        final int block = k1 - k0;
+        final double[] t = new double[block * block];
+        final double[] z = new double[block];
+        
+        for(int i=0; i<block; i++) {
+            //z = V(:, 0:i)^T * v_i
+            for(int p=0; p<i; p++) {
+                z[p] = 0;
+            }
+            for(int j=i; j<height-k0; j++) {
+                final double vi = v[j*block + i];
+                for(int p=0; p<i; p++) {
+                    z[p] += v[j*block + p] * vi;
+                }
+            }
+            
+            //T(0:i, i) = -tau_i * T(0:i, 0:i) * z
+            for(int p=0; p<i; p++) {
+                double sum = 0;
+                for(int q=p; q<i; q++) {
+                    sum += t[p*block + q] * z[q];
+                }
+                t[p*block + i] = -tau[k0 + i] * sum;
+            }
+            t[i*block + i] = tau[k0 + i];
+        }
+        
+        return t;
+    }
+    
+    
+    
+    /**
+     * Returns the number of rows of the decomposed matrix.
+     * 
+     * @return number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Returns the number of columns of the decomposed matrix.
+     * 
+     * @return number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Returns if the decomposed matrix has full column rank, i.e. if
+     * <code>R</code> has no zero on its diagonal.
+     * 
+     * @return true if the decomposed matrix has full rank
+     */
+    public boolean isFullRank() {
+        for(int k=0; k<width; k++) {
+            if(qr[k*width + k] == 0) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the upper triangular factor <code>R</code> with as many rows as
+     * columns.
+     * 
+     * @return upper triangular factor
+     */
+    public Matrix getR() {
+        final Matrix r = new Matrix(width, width, Matrix.Layout.FLAT);
+        r.setParallel((j, i) -> (j <= i) ? qr[j*width + i] : 0);
+        
+        return r;
+    }
+    
+    /**
+     * Returns the orthogonal factor <code>Q</code> with as many columns as
+     * the decomposed matrix (thin QR decomposition).
+     * 
+     * @return orthogonal factor
+     */
+    public Matrix getQ() {
+        final double[] q = new double[Math.multiplyExact(height, width)];
+        for(int k=0; k<width; k++) {
+            q[k*width + k] = 1;
+        }
+        
+        for(int k=width-1; k>=0; k--) {
+            reflect(k, q, width);
+        }
+        
+        return new Matrix(height, width,
+                new FlatStorage(height, width, q, 0, width));
+    }
+    
+    /**
+     * Applies the reflection <code>k</code> to the given matrix.
+     * 
+     * @param k index of the reflection
+     * @param x matrix in row-major order with as many rows as the decomposed
+     * matrix
+     * @param columns number of columns of the matrix
+     */
+    private void reflect(int k, double[] x, int columns) {
+        if(tau[k] == 0) {
+            return;
+        }
+        
+        final double[] w = new double[columns];
+        System.arraycopy(x, k*columns, w, 0, columns);
+        for(int j=k+1; j<height; j++) {
+            final double v = qr[j*width + k];
+            for(int i=0; i<columns; i++) {
+                w[i] += v * x[j*columns + i];
+            }
+        }
+        
+        for(int i=0; i<columns; i++) {
+            x[k*columns + i] -= tau[k] * w[i];
+        }
+        for(int j=k+1; j<height; j++) {
+            final double v = tau[k] * qr[j*width + k];
+            for(int i=0; i<columns; i++) {
+                x[j*columns + i] -= v * w[i];
+            }
+        }
+    }
+    
+    /**
+     * Returns the least squares solution <code>X</code> that minimizes
+     * <code>||A*X - B||</code>, where <code>A</code> is the decomposed matrix.
+     * The solution is returned in a flat matrix.
+     * 
+     * @param b right-hand sides, one per column
+     * @return least squares solutions, one per column
+     * @throws ArithmeticException if the height of <code>b</code> doesn't
+     * match or the decomposed matrix is rank deficient
+     */
+    public Matrix solveLeastSquares(Matrix b) {
+        if(b.getHeight() != height) {
+            throw new ArithmeticException("row dimensions must agree");
+        }
+        if(!isFullRank()) {
+            throw new ArithmeticException("matrix is rank deficient");
+        }
+        
+        
+        
+        final int columns = b.getWidth();
+        final double[] y = b.toFlatArray();
+        
+        //Y = Q^T * B
+        for(int k=0; k<width; k++) {
+            reflect(k, y, columns);
+        }
+        
+        //Back substitution with R, only the first rows of Y are needed
+        final double[] x = new double[Math.multiplyExact(width, columns)];
+        System.arraycopy(y, 0, x, 0, x.length);
+        for(int j=width-1; j>=0; j--) {
+            for(int k=j+1; k<width; k++) {
+                final double factor = qr[j*width + k];
+                for(int i=0; i<columns; i++) {
+                    x[j*columns + i] -= factor * x[k*columns + i];
+                }
+            }
+            
+            final double diagonal = qr[j*width + j];
+            for(int i=0; i<columns; i++) {
+                x[j*columns + i] /= diagonal;
+            }
+        }
+        
+        return new Matrix(width, columns,
+                new FlatStorage(width, columns, x, 0, columns));
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.Random;
+
+
+
+/**
+ * Singular value decomposition of a matrix.
+ * The matrix is decomposed into <code>A = U*S*V^T</code>, where the columns
+ * of <code>U</code> and <code>V</code> are orthonormal and the diagonal
+ * matrix <code>S</code> holds the singular values in descending order.
+ * 
+ * The full (thin) decomposition is calculated with the one-sided Jacobi
+ * algorithm, which rotates pairs of columns of the matrix until they are
+ * orthogonal. The columns are stored as rows of a flat array so the
+ * rotations work on contiguous memory.
+ * The randomized decomposition only calculates the largest singular
+ * triplets: the range of the matrix is sampled with a few matrix
+ * multiplications with a random matrix, and only the small projection of the
+ * matrix onto that range is decomposed.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class SingularValueDecomposition {
+    
+    /**
+     * Maximum number of sweeps over all column pairs.
+     */
+    private static final int MAX_SWEEPS = 64;
+    /**
+     * Default number of additional samples of the randomized decomposition.
+     */
+    private static final int DEFAULT_OVERSAMPLING = 10;
+    /**
+     * Default number of power iterations of the randomized decomposition.
+     */
+    private static final int DEFAULT_POWER_ITERATIONS = 2;
+    
+    
+    
+    /**
+     * Dimensions of the decomposed matrix.
+     */
+    private final int height, width;
+    /**
+     * Calculated singular values in descending order.
+     */
+    private final double[] values;
+    /**
+     * Left and right singular vectors as columns.
+     */
+    private final Matrix u, v;
+    
+    
+    
+    /**
+     * Calculates the thin singular value decomposition of the given matrix.
+     * 
+     * @param matrix matrix to decompose
+     * @throws ArithmeticException if the iteration doesn't converge
+     */
+    public SingularValueDecomposition(Matrix matrix) {
+        height = matrix.getHeight();
+        width = matrix.getWidth();
+        
+        //The shorter dimension gets orthogonalized, its vectors are rows
+        final boolean tall = height >= width;
+        final int count = Math.min(height, width);
+        final int length = Math.max(height, width);
+        
+        final double[] w = tall ? matrix.transpose().toFlatArray()
+                : matrix.toFlatArray();
+        final double[] z = new double[Math.multiplyExact(count, count)];
+        for(int k=0; k<count; k++) {
+            z[k*count + k] = 1;
+        }
+        
+        values = new double[count];
+        jacobi(w, count, length, z, values);
+        
+        
+        
+        //w holds the (unnormalized) vectors of the longer dimension
+        for(int k=0; k<count; k++) {
+            final double factor = (values[k] != 0) ? 1 / values[k] : 0;
+            for(int j=0; j<length; j++) {
+                w[k*length + j] *= factor;
+            }
+        }
+        
+        final Matrix longer = columns(w, count, length);
+        final Matrix shorter = columns(z, count, count);
+        u = tall ? longer : shorter;
+        v = tall ? shorter : longer;
+    }
+    
+    /**
+     * Constructs a decomposition of the given factors.
+     * 
+     * @param height number of rows of the decomposed matrix
+     * @param width number of columns of the decomposed matrix
+     * @param values singular values in descending order
+     * @param u left singular vectors as columns
+     * @param v right singular vectors as columns
+     */
+    private SingularValueDecomposition(int height, int width,
+            double[] values, Matrix u, Matrix v) {
+        this.height = height;
+        this.width = width;
+        this.values = values;
+        this.u = u;
+        this.v = v;
+    }
+    
+    
+    
+    /**
+     * Calculates the <code>rank</code> largest singular triplets of the
+     * given matrix with a randomized algorithm.
+     * 
+     * @param matrix matrix to decompose
+     * @param rank number of singular triplets to calculate
+     * @return truncated singular value decomposition
+     * @throws IllegalArgumentException if the rank is negative or larger
+     * than the smaller dimension of the matrix
+     */
+    public static SingularValueDecomposition randomized(Matrix matrix,
+            int rank) {
+        return randomized(matrix, rank, DEFAULT_OVERSAMPLING,
+                DEFAULT_POWER_ITERATIONS, new Random());
+    }
+    
+    /**
+     * Calculates the <code>rank</code> largest singular triplets of the
+     * given matrix with a randomized algorithm.
+     * The range of the matrix is sampled with
+     * <code>rank + oversampling</code> random vectors, every power iteration
+     * multiplies the samples with the matrix and its transpose once more,
+     * which improves the accuracy for slowly decaying singular values.
+     * 
+     * @param matrix matrix to decompose
+     * @param rank number of singular triplets to calculate
+     * @param oversampling number of additional samples
+     * @param powerIterations number of power iterations
+     * @param random source of the random samples
+     * @return truncated singular value decomposition
+     * @throws IllegalArgumentException if the rank is negative or larger
+     * than the smaller dimension of the matrix or the oversampling or number
+     * of power iterations is negative
+     */
+    public static SingularValueDecomposition randomized(Matrix matrix,
+            int rank, int oversampling, int powerIterations, Random random) {
+        
+        final int height = matrix.getHeight();
+        final int width = matrix.getWidth();
+        if(rank < 0 || rank > Math.min(height, width)) {
+            throw new IllegalArgumentException("rank out of range: " + rank);
+        }
+        if(oversampling < 0 || powerIterations < 0) {
+            throw new IllegalArgumentException(
+                    "oversampling and power iterations must not be negative");
+        }
+        
+        
+        
+        final int samples = Math.min(rank + oversampling,
+                Math.min(height, width));
+        final Matrix omega = new Matrix(width, samples, Matrix.Layout.FLAT);
+        omega.set(() -> random.nextGaussian());
+        
+        //Orthonormal basis of the sampled range
+        Matrix q = new QRDecomposition(matrix.multiply(omega)).getQ();
+        for(int iteration=0; iteration<powerIterations; iteration++) {
+            final Matrix z = q.transpose().multiply(matrix).transpose();
+            final Matrix p = new QRDecomposition(z).getQ();
+            q = new QRDecomposition(matrix.multiply(p)).getQ();
+        }
+        
+        //Decompose the projection B = Q^T * A = U_B * S * V^T
+        final Matrix b = q.transpose().multiply(matrix);
+        final SingularValueDecomposition small =
+                new SingularValueDecomposition(b);
+        final Matrix u = q.multiply(small.u);
+        
+        final double[] values = new double[rank];
+        System.arraycopy(small.values, 0, values, 0, rank);
+        
+        return new SingularValueDecomposition(height, width, values,
+                leading(u, rank), leading(small.v, rank));
+    }
+    
+    
+    
+    /**
+     * Orthogonalizes the rows of the given matrix with one-sided Jacobi
+     * rotations, which are also applied to the rows of <code>z</code>.
+     * Afterwards the norms of the rows are the singular values, the rows are
+     * sorted by them in descending order.
+     * 
+     * @param w rows to orthogonalize in row-major order
+     * @param count number of rows
+     * @param length length of the rows
+     * @param z accumulated rotations, count x count in row-major order
+     * @param norms array to store the norms of the rows in
+     */
+    private static void jacobi(double[] w, int count, int length,
+            double[] z, double[] norms) {
+        
+        final double eps = Math.ulp(1.0);
+        
+        boolean rotated = true;
+        for(int sweep=0; rotated; sweep++) {
+            if(sweep >= MAX_SWEEPS) {
+                throw new ArithmeticException(
+                        "singular values did not converge");
+            }
+            rotated = false;
+            
+            for(int k=0; k<count; k++) {
+                norms[k] = dot(w, k*length, w, k*length, length);
+            }
+            
+            for(int i=0; i<count-1; i++) {
+                for(int j=i+1; j<count; j++) {
+                    final double alpha = norms[i];
+                    final double beta = norms[j];
+                    final double gamma = dot(w, i*length, w, j*length, length);
+                    
+                    if(gamma == 0
+                            || Math.abs(gamma) <= eps*Math.sqrt(alpha*beta)) {
+                        continue;
+                    }
+                    rotated = true;
+                    
+                    final double zeta = (beta - alpha) / (2 * gamma);
+                    final double t = Math.copySign(1, zeta)
+                            / (Math.abs(zeta) + Math.sqrt(1 + zeta*zeta));
+                    final double c = 1 / Math.sqrt(1 + t*t);
+                    final double s = c * t;
+                    
+                    rotate(w, i*length, j*length, length, c, s);
+                    rotate(z, i*count, j*count, count, c, s);
+                    norms[i] = alpha - t*gamma;
+                    norms[j] = beta + t*gamma;
+                }
+            }
+        }
+        
+        
+        
+        for(int k=0; k<count; k++) {
+            norms[k] = Math.sqrt(dot(w, k*length, w, k*length, length));
+        }
+        
+        for(int i=0; i<count-1; i++) {
+            int max = i;
+            for(int j=i+1; j<count; j++) {
+                if(norms[j] > norms[max]) {
+                    max = j;
+                }
+            }
+            
+            if(max != i) {
+                final double temp = norms[i];
+                norms[i] = norms[max];
+                norms[max] = temp;
+                swap(w, i*length, max*length, length);
+                swap(z, i*count, max*count, count);
+            }
+        }
+    }
+    
+    /**
+     * Returns the dot product of two rows.
+     * 
+     * @param a array of the first row
+     * @param ai index of the first row
+     * @param b array of the second row
+     * @param bi index of the second row
+     * @param length length of the rows
+     * @return dot product
+     */
+    private static double dot(double[] a, int ai, double[] b, int bi,
+            int length) {
+        double sum = 0;
+        for(int k=0; k<length; k++) {
+            sum += a[ai + k] * b[bi + k];
+        }
+        
+        return sum;
+    }
+    
+    /**
+     * Rotates two rows: <code>(x, y) = (c*x - s*y, s*x + c*y)</code>.
+     * 
+     * @param a array of the rows
+     * @param x index of the first row
+     * @param y index of the second row
+     * @param length length of the rows
+     * @param c cosine of the rotation
+     * @param s sine of the rotation
+     */
+    private static void rotate(double[] a, int x, int y, int length,
+            double c, double s) {
+        for(int k=0; k<length; k++) {
+            final double first = a[x + k];
+            final double second = a[y + k];
+            a[x + k] = c*first - s*second;
+            a[y + k] = s*first + c*second;
+        }
+    }
+    
+    /**
+     * Exchanges two rows.
+     * 
+     * @param a array of the rows
+     * @param x index of the first row
+     * @param y index of the second row
+     * @param length length of the rows
+     */
+    private static void swap(double[] a, int x, int y, int length) {
+        for(int k=0; k<length; k++) {
+            final double temp = a[x + k];
+            a[x + k] = a[y + k];
+            a[y + k] = temp;
+        }
+    }
+    
+    /**
+     * Returns a matrix whose columns are the given rows.
+     * 
+     * @param rows rows in row-major order
+     * @param count number of rows
+     * @param length length of the rows
+     * @return matrix with <code>length</code> rows and <code>count</code>
+     * columns
+     */
+    private static Matrix columns(double[] rows, int count, int length) {
+        final Matrix matrix = new Matrix(length, count, Matrix.Layout.FLAT);
+        matrix.setParallel((j, i) -> rows[i*length + j]);
+        
+        return matrix;
+    }
+    
+    /**
+     * Returns the first columns of the given matrix.
+     * 
+     * @param matrix matrix to return the columns of
+     * @param count number of columns
+     * @return matrix with the first <code>count</code> columns
+     */
+    private static Matrix leading(Matrix matrix, int count) {
+        final Matrix result =
+                new Matrix(matrix.getHeight(), count, Matrix.Layout.FLAT);
+        result.setParallel((j, i) -> matrix.get(j, i));
+        
+        return result;
+    }
+    
+    
+    
+    /**
+     * Returns the number of rows of the decomposed matrix.
+     * 
+     * @return number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Returns the number of columns of the decomposed matrix.
+     * 
+     * @return number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Returns the number of calculated singular triplets.
+     * 
+     * @return number of calculated singular triplets
+     */
+    public int getCount() {
+        return values.length;
+    }
+    
+    /**
+     * Returns the calculated singular values in descending order.
+     * 
+     * @return copy of the singular values
+     */
+    public double[] getSingularValues() {
+        return values.clone();
+    }
+    
+    /**
+     * Returns the matrix <code>U</code> whose columns are the left singular
+     * vectors.
+     * 
+     * @return copy of the left singular vectors
+     */
+    public Matrix getU() {
+        return new Matrix(u);
+    }
+    
+    /**
+     * Returns the diagonal matrix <code>S</code> of the singular values.
+     * 
+     * @return diagonal matrix of the singular values
+     */
+    public Matrix getS() {
+        return new Matrix(values.length, values.length,
+                (j, i) -> (j == i) ? values[j] : 0);
+    }
+    
+    /**
+     * Returns the matrix <code>V</code> whose columns are the right singular
+     * vectors.
+     * 
+     * @return copy of the right singular vectors
+     */
+    public Matrix getV() {
+        return new Matrix(v);
+    }
+    
+    /**
+     * Returns the two norm of the decomposed matrix, its largest singular
+     * value.
+     * 
+     * @return two norm
+     */
+    public double norm2() {
+        return (values.length > 0) ? values[0] : 0;
+    }
+    
+    /**
+     * Returns the effective numerical rank of the decomposed matrix, the
+     * number of calculated singular values above the rounding tolerance.
+     * 
+     * @return effective numerical rank
+     */
+    public int rank() {
+        final double tolerance =
+                Math.max(height, width) * norm2() * Math.ulp(1.0);
+        
+        int rank = 0;
+        for(double value : values) {
+            if(value > tolerance) {
+                rank++;
+            }
+        }
+        
+        return rank;
+    }
+}
@@ -0,0 +1,957 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Sparse matrix in compressed sparse row (CSR) format.
+ * Only the nonzero elements are stored: the column indices and values of all
+ * rows one after another, sorted by column within a row, and for every row
+ * the index of its first element in these arrays.
+ * The compressed sparse column (CSC) format of a matrix is the CSR format of
+ * its transpose, so {@link #transpose()} and
+ * {@link #fromCSC(int, int, int[], int[], double[])} convert between both.
+ * 
+ * The dimensions are immutable. Operations that change the structure return
+ * a new sparse matrix.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class SparseMatrix {
+    
+    /**
+     * Number of stored elements from which on the rows are processed in
+     * parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+    
+    
+    
+    /**
+     * Dimensions of the matrix.
+     * Height: Number of rows
+     * Width: Number of columns
+     */
+    private final int height, width;
+    /**
+     * Index of the first element of every row, followed by the number of
+     * stored elements.
+     */
+    private final int[] rowPointers;
+    /**
+     * Column indices of the stored elements.
+     */
+    private final int[] columnIndices;
+    /**
+     * Values of the stored elements.
+     */
+    private final double[] values;
+    /**
+     * Tasks of the parallel matrix-vector product, built on first use.
+     */
+    private volatile MultiplyTask multiplyTask;
+    
+    
+    
+    /**
+     * Task which multiplies the rows of a range of partitions with a vector.
+     * The tree of tasks is built once per matrix and reused by every product,
+     * so a product allocates nothing. The vectors are passed through the
+     * root, which only calculates one product at a time.
+     */
+    private static class MultiplyTask extends RecursiveAction {
+        
+        /**
+         * Serialization version, required by the serializable superclass.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Matrix to multiply.
+         */
+        private final SparseMatrix matrix;
+        /**
+         * First row of every partition, followed by the height.
+         */
+        private final int[] bounds;
+        /**
+         * Range of partitions to calculate.
+         */
+        private final int from, to;
+        /**
+         * Root of the tree, holding the vectors.
+         */
+        private final MultiplyTask root;
+        /**
+         * Halves of the range, null if only one partition is calculated.
+         */
+        private final MultiplyTask left, right;
+        /**
+         * Vector to multiply with and array to write the result into, only
+         * set on the root while a product is calculated.
+         */
+        private double[] x, y;
+        
+        
+        
+        /**
+         * Constructs a new task and its subtasks for the given partitions.
+         * 
+         * @param matrix matrix to multiply
+         * @param bounds first row of every partition, followed by the height
+         * @param from first partition (inclusive)
+         * @param to last partition (exclusive)
+         * @param root root of the tree, null if this task is the root
+         */
+        MultiplyTask(SparseMatrix matrix, int[] bounds, int from, int to,
+                MultiplyTask root) {
+            this.matrix = matrix;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.root = root != null ? root : this;
+            
+            if(to - from > 1) {
+                final int middle = (from + to) >>> 1;
+                left = new MultiplyTask(matrix, bounds, from, middle,
+                        this.root);
+                right = new MultiplyTask(matrix, bounds, middle, to,
+                        this.root);
+            } else {
+                left = null;
+                right = null;
+            }
+        }
+        
+        
+        
+        /**
+         * Multiplies the matrix with the vector <code>x</code> and writes the
+         * result into <code>y</code>, with the calling thread taking part.
+         * Must only be called on the root.
+         * 
+         * @param x vector to multiply with
+         * @param y array to write the result into
+         */
+        synchronized void multiply(double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+            try {
+                reinitialize();
+                invoke();
+            } finally {
+                this.x = null;
+                this.y = null;
+            }
+        }
+        
+        @Override
+        protected void compute() {
+            if(left == null) {
+                matrix.multiply(root.x, root.y, bounds[from], bounds[to]);
+            } else {
+                left.reinitialize();
+                right.reinitialize();
+                invokeAll(left, right);
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Constructs a new sparse matrix with the nonzero elements of the given
+     * matrix.
+     * 
+     * @param matrix dense matrix to convert
+     */
+    public SparseMatrix(Matrix matrix) {
+        height = matrix.getHeight();
+        width = matrix.getWidth();
+        rowPointers = new int[height + 1];
+        
+        for(int j=0; j<height; j++) {
+            int count = 0;
+            for(int i=0; i<width; i++) {
+                if(matrix.get(j, i) != 0) {
+                    count++;
+                }
+            }
+            rowPointers[j+1] = rowPointers[j] + count;
+        }
+        
+        columnIndices = new int[rowPointers[height]];
+        values = new double[rowPointers[height]];
+        for(int j=0; j<height; j++) {
+            int p = rowPointers[j];
+            for(int i=0; i<width; i++) {
+                final double value = matrix.get(j, i);
+                if(value != 0) {
+                    columnIndices[p] = i;
+                    values[p++] = value;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Constructs a new sparse matrix on top of the given CSR arrays.
+     * The arrays are not copied. The column indices within a row must be
+     * sorted ascending and unique.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param rowPointers index of the first element of every row, followed
+     * by the number of stored elements
+     * @param columnIndices column indices of the stored elements
+     * @param values values of the stored elements
+     * @throws IllegalArgumentException if the lengths of the arrays don't
+     * match
+     */
+    public SparseMatrix(int height, int width, int[] rowPointers,
+            int[] columnIndices, double[] values) {
+        if(rowPointers.length != height + 1
+                || columnIndices.length < rowPointers[height]
+                || values.length < rowPointers[height]) {
+            throw new IllegalArgumentException(
+                    "array lengths don't match the dimensions");
+        }
+        
+        this.height = height;
+        this.width = width;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+    
+    
+    
+    /**
+     * Constructs a new sparse matrix from elements given as triplets of
+     * row index, column index and value in any order.
+     * Values of duplicate positions are summed up.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param rows row indices of the elements
+     * @param columns column indices of the elements
+     * @param values values of the elements
+     * @return new sparse matrix
+     * @throws IllegalArgumentException if the lengths of the arrays differ
+     */
+    public static SparseMatrix fromTriplets(int height, int width,
+            int[] rows, int[] columns, double[] values) {
+        if(rows.length != columns.length || rows.length != values.length) {
+            throw new IllegalArgumentException("array lengths differ");
+        }
+        
+        
+        
+        //Counting sort by row
+        final int[] pointers = new int[height + 1];
+        for(int row : rows) {
+            if(row < 0 || row >= height) {
+                throw new IndexOutOfBoundsException("row " + row);
+            }
+            pointers[row + 1]++;
+        }
+        for(int j=0; j<height; j++) {
+            pointers[j+1] += pointers[j];
+        }
+        
+        final int[] next = Arrays.copyOf(pointers, height);
+        final int[] sortedColumns = new int[rows.length];
+        final double[] sortedValues = new double[rows.length];
+        for(int k=0; k<rows.length; k++) {
+            if(columns[k] < 0 || columns[k] >= width) {
+                throw new IndexOutOfBoundsException("column " + columns[k]);
+            }
+            final int p = next[rows[k]]++;
+            sortedColumns[p] = columns[k];
+            sortedValues[p] = values[k];
+        }
+        
+        //Sort every row by column and sum up duplicates
+        final int[] resultPointers = new int[height + 1];
+        int count = 0;
+        for(int j=0; j<height; j++) {
+            final int from = pointers[j];
+            final int to = pointers[j+1];
+            sortRow(sortedColumns, sortedValues, from, to);
+            
+            for(int p=from; p<to; p++) {
+                if(count > resultPointers[j]
+                        && sortedColumns[count-1] == sortedColumns[p]) {
+                    sortedValues[count-1] += sortedValues[p];
+                } else {
+                    sortedColumns[count] = sortedColumns[p];
+                    sortedValues[count++] = sortedValues[p];
+                }
+            }
+            resultPointers[j+1] = count;
+        }
+        
+        return new SparseMatrix(height, width, resultPointers,
+                Arrays.copyOf(sortedColumns, count),
+                Arrays.copyOf(sortedValues, count));
+    }
+    
+    /**
+     * Constructs a new sparse matrix from arrays in compressed sparse column
+     * (CSC) format.
+     * The row indices within a column must be sorted ascending and unique.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param columnPointers index of the first element of every column,
+     * followed by the number of stored elements
+     * @param rowIndices row indices of the stored elements
+     * @param values values of the stored elements
+     * @return new sparse matrix
+     */
+    public static SparseMatrix fromCSC(int height, int width,
+            int[] columnPointers, int[] rowIndices, double[] values) {
+        return new SparseMatrix(width, height,
+                columnPointers, rowIndices, values).transpose();
+    }
+    
+    /**
+     * Sorts the elements of a row by their column indices (insertion sort,
+     * rows are usually short and often already sorted).
+     * 
+     * @param columns column indices
+     * @param values values
+     * @param from first element of the row (inclusive)
+     * @param to last element of the row (exclusive)
+     */
+    private static void sortRow(int[] columns, double[] values,
+            int from, int to) {
+        for(int p=from+1; p<to; p++) {
+            final int column = columns[p];
+            final double value = values[p];
+            
+            int q = p - 1;
+            while(q >= from && columns[q] > column) {
+                columns[q+1] = columns[q];
+                values[q+1] = values[q];
+                q--;
+            }
+            columns[q+1] = column;
+            values[q+1] = value;
+        }
+    }
+    
+    
+    
+    /**
+     * Reads a sparse matrix from a file in the MatrixMarket exchange format.
+     * Both the coordinate and the array format with real, integer or
+     * pattern values are supported, symmetric and skew-symmetric matricies
+     * are expanded. Values of duplicate entries are summed up.
+     * 
+     * @param path file to read
+     * @return sparse matrix read
+     * @throws IOException if an I/O error occurs or the file is not a
+     * supported MatrixMarket file
+     */
+    public static SparseMatrix readMatrixMarket(Path path)
+            throws IOException {
+        return MatrixMarket.readSparse(path);
+    }
+    
+    
+    
+    /**
+     * Returns the number of rows.
+     * 
+     * @return number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Returns the number of columns.
+     * 
+     * @return number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Returns the number of stored elements.
+     * 
+     * @return number of stored elements
+     */
+    public int getNonZeros() {
+        return rowPointers[height];
+    }
+    
+    /**
+     * Returns the row pointers of the CSR format.
+     * This is the backing array, not a copy.
+     * 
+     * @return index of the first element of every row, followed by the
+     * number of stored elements
+     */
+    public int[] getRowPointers() {
+        return rowPointers;
+    }
+    
+    /**
+     * Returns the column indices of the stored elements.
+     * This is the backing array, not a copy.
+     * 
+     * @return column indices of the stored elements
+     */
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+    
+    /**
+     * Returns the values of the stored elements.
+     * This is the backing array, not a copy.
+     * 
+     * @return values of the stored elements
+     */
+    public double[] getValues() {
+        return values;
+    }
+    
+    /**
+     * Returns the element at the specified position.
+     * 
+     * @param row row of the element to return
+     * @param column column of the element to return
+     * @return the element at the specified position
+     * @throws IndexOutOfBoundsException if the position is outside of this
+     * matrix
+     */
+    public double get(int row, int column) {
+        if(row < 0 || row >= height || column < 0 || column >= width) {
+            throw new IndexOutOfBoundsException(
+                    "(" + row + ", " + column + ")");
+        }
+        
+        final int p = Arrays.binarySearch(columnIndices,
+                rowPointers[row], rowPointers[row + 1], column);
+        return (p >= 0) ? values[p] : 0;
+    }
+    
+    
+    
+    /**
+     * Returns the transpose of this matrix.
+     * Its CSR arrays are the CSC arrays of this matrix.
+     * 
+     * @return transpose of this matrix
+     */
+    public SparseMatrix transpose() {
+        final int[] pointers = new int[width + 1];
+        for(int p=0; p<getNonZeros(); p++) {
+            pointers[columnIndices[p] + 1]++;
+        }
+        for(int i=0; i<width; i++) {
+            pointers[i+1] += pointers[i];
+        }
+        
+        final int[] next = Arrays.copyOf(pointers, width);
+        final int[] rows = new int[getNonZeros()];
+        final double[] transposed = new double[getNonZeros()];
+        for(int j=0; j<height; j++) {
+            for(int p=rowPointers[j]; p<rowPointers[j+1]; p++) {
+                final int q = next[columnIndices[p]]++;
+                rows[q] = j;
+                transposed[q] = values[p];
+            }
+        }
+        
+        return new SparseMatrix(width, height, pointers, rows, transposed);
+    }
+    
+    /**
+     * Multiplies every element of this matrix with the given value and returns
+     * the result.
+     * 
+     * @param factor scalar factor
+     * @return product
+     */
+    public SparseMatrix multiply(double factor) {
+        final double[] scaled = new double[getNonZeros()];
+        for(int p=0; p<scaled.length; p++) {
+            scaled[p] = factor * values[p];
+        }
+        
+        return new SparseMatrix(height, width,
+                rowPointers, columnIndices, scaled);
+    }
+    
+    /**
+     * Multiplies this matrix with the vector <code>x</code> and writes the
+     * result into <code>y</code>, so no memory is allocated in between
+     * iterations of iterative solvers.
+     * Large matricies are split into partitions holding about the same number
+     * of stored elements which are processed in parallel, so matricies with a
+     * few very dense rows are balanced as well. The tasks doing so are
+     * created once and reused, concurrent products with the same matrix are
+     * calculated one after another.
+     * 
+     * @param x vector to multiply with
+     * @param y array to write the result into, must not be <code>x</code>
+     * @throws ArithmeticException if the lengths of the arrays don't match
+     * the dimensions
+     * @throws IllegalArgumentException if <code>x</code> and <code>y</code>
+     * are the same array
+     */
+    public void multiply(double[] x, double[] y) {
+        if(x.length != width || y.length != height) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        if(x == y) {
+            throw new IllegalArgumentException("y must not be x");
+        }
+        
+        
+        
+        if(getNonZeros() < PARALLEL_THRESHOLD) {
+            multiply(x, y, 0, height);
+        } else {
+            MultiplyTask task = multiplyTask;
+            if(task == null) {
+                final int[] bounds = partitions();
+                task = new MultiplyTask(this, bounds, 0, bounds.length - 1,
+                        null);
+                multiplyTask = task;
+            }
+            task.multiply(x, y);
+        }
+    }
+    
+    /**
+     * Multiplies this matrix with the given vector and returns the result.
+     * 
+     * @param operand vector to multiply with
+     * @return product
+     * @throws ArithmeticException if the size of the vector doesn't match
+     * the width of this matrix
+     */
+    public Vector multiply(Vector operand) {
+        final Vector result = new Vector(height);
+        multiply(operand.data, result.data);
+        
+        return result;
+    }
+    
+    /**
+     * Multiplies the given rows of this matrix with the vector
+     * <code>x</code> and writes the result into <code>y</code>.
+     * 
+     * @param x vector to multiply with
+     * @param y array to write the result into
+     * @param rowFrom first row (inclusive)
+     * @param rowTo last row (exclusive)
+     */
+    private void multiply(double[] x, double[] y, int rowFrom, int rowTo) {
+        for(int j=rowFrom; j<rowTo; j++) {
+            double sum = 0;
+            for(int p=rowPointers[j]; p<rowPointers[j+1]; p++) {
+                sum += values[p] * x[columnIndices[p]];
+            }
+            y[j] = sum;
+        }
+    }
+    
+    /**
+     * Returns the row boundaries of the partitions for the parallel
+     * matrix-vector product.
+     * Every row costs its stored elements plus one for the row itself.
+     * 
+     * @return first row of every partition, followed by the height
+     */
+    private int[] partitions() {
+        final int count = Math.min(height, Math.max(1,
+                4 * ForkJoinPool.getCommonPoolParallelism()));
+        final long cost = (long)getNonZeros() + height;
+        
+        final int[] bounds = new int[count + 1];
+        for(int k=1; k<count; k++) {
+            //First row whose preceding cost reaches the target
+            final long target = cost * k / count;
+            int low = bounds[k-1];
+            int high = height;
+            while(low < high) {
+                final int middle = (low + high) >>> 1;
+                if((long)rowPointers[middle] + middle < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            bounds[k] = low;
+        }
+        bounds[count] = height;
+        
+        return bounds;
+    }
+    
+    /**
+     * Matrix multiplies this matrix with the given dense matrix and returns
+     * the result.
+     * The result has the layout of the given matrix.
+     * 
+     * @param operand second factor
+     * @return product
+     */
+    public Matrix multiply(Matrix operand) {
+        if(width != operand.getHeight()) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        
+        
+        
+        final int columns = operand.getWidth();
+        final Matrix result =
+                new Matrix(height, columns, operand.getLayout());
+        final MatrixStorage b = operand.storage();
+        final MatrixStorage c = result.storage();
+        
+        forRows((j) -> {
+            //Rows not stored in an array are accumulated in a buffer
+            final double[] array = c.rowArray(j);
+            final double[] cRow = (array != null) ? array : new double[columns];
+            final int cOffset = (array != null) ? c.rowOffset(j) : 0;
+            
+            for(int p=rowPointers[j]; p<rowPointers[j+1]; p++) {
+                final double value = values[p];
+                final int k = columnIndices[p];
+                final double[] bRow = b.rowArray(k);
+                
+                if(bRow != null) {
+                    final int bOffset = b.rowOffset(k);
+                    for(int i=0; i<columns; i++) {
+                        cRow[cOffset + i] += value * bRow[bOffset + i];
+                    }
+                } else {
+                    for(int i=0; i<columns; i++) {
+                        cRow[cOffset + i] += value * b.get(k, i);
+                    }
+                }
+            }
+            
+            if(array == null) {
+                for(int i=0; i<columns; i++) {
+                    c.set(j, i, cRow[i]);
+                }
+            }
+        });
+        
+        return result;
+    }
+    
+    /**
+     * Matrix multiplies this matrix with the given sparse matrix and returns
+     * the result (Gustavson's algorithm).
+     * 
+     * @param operand second factor
+     * @return product
+     */
+    public SparseMatrix multiply(SparseMatrix operand) {
+        if(width != operand.height) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+        
+        
+        
+        final int columns = operand.width;
+        final int[] pointers = new int[height + 1];
+        int[] resultColumns = new int[Math.max(16,
+                getNonZeros() + operand.getNonZeros())];
+        double[] resultValues = new double[resultColumns.length];
+        
+        //Dense accumulator of the current row and the row it belongs to
+        final double[] accumulator = new double[columns];
+        final int[] marker = new int[columns];
+        Arrays.fill(marker, -1);
+        
+        int count = 0;
+        for(int j=0; j<height; j++) {
+            final int rowStart = count;
+            
+            for(int p=rowPointers[j]; p<rowPointers[j+1]; p++) {
+                final double value = values[p];
+                final int k = columnIndices[p];
+                
+                for(int q=operand.rowPointers[k];
+                        q<operand.rowPointers[k+1]; q++) {
+                    final int i = operand.columnIndices[q];
+                    if(marker[i] != j) {
+                        marker[i] = j;
+                        accumulator[i] = 0;
+                        if(count == resultColumns.length) {
+                            resultColumns = Arrays.copyOf(resultColumns,
+                                    2 * resultColumns.length);
+                            resultValues = Arrays.copyOf(resultValues,
+                                    resultColumns.length);
+                        }
+                        resultColumns[count++] = i;
+                    }
+                    accumulator[i] += value * operand.values[q];
+                }
+            }
+            
+            Arrays.sort(resultColumns, rowStart, count);
+            for(int p=rowStart; p<count; p++) {
+                resultValues[p] = accumulator[resultColumns[p]];
+            }
+            pointers[j+1] = count;
+        }
+        
+        return new SparseMatrix(height, columns, pointers,
+                Arrays.copyOf(resultColumns, count),
+                Arrays.copyOf(resultValues, count));
+    }
+    
+    /**
+     * Adds the given matrix to this matrix elementwise and returns the result.
+     * 
+     * @param operand other summand
+     * @return sum
+     */
+    public SparseMatrix add(SparseMatrix operand) {
+        return merge(operand, 1, 1);
+    }
+    
+    /**
+     * Subtracts the given matrix from this matrix elementwise and returns the
+     * result.
+     * 
+     * @param operand subtrahend
+     * @return difference
+     */
+    public SparseMatrix subtract(SparseMatrix operand) {
+        return merge(operand, 1, -1);
+    }
+    
+    /**
+     * Multiplies this matrix with the given matrix elementwise and returns the
+     * result.
+     * Only positions stored in both matricies are stored in the result.
+     * 
+     * @param operand factor
+     * @return product
+     */
+    public SparseMatrix multiplyElementwise(SparseMatrix operand) {
+        checkDimensions(operand);
+        
+        final int[] pointers = new int[height + 1];
+        final int capacity = Math.min(getNonZeros(), operand.getNonZeros());
+        final int[] resultColumns = new int[capacity];
+        final double[] resultValues = new double[capacity];
+        
+        int count = 0;
+        for(int j=0; j<height; j++) {
+            int p = rowPointers[j];
+            int q = operand.rowPointers[j];
+            while(p < rowPointers[j+1] && q < operand.rowPointers[j+1]) {
+                if(columnIndices[p] < operand.columnIndices[q]) {
+                    p++;
+                } else if(columnIndices[p] > operand.columnIndices[q]) {
+                    q++;
+                } else {
+                    resultColumns[count] = columnIndices[p];
+                    resultValues[count++] = values[p++] * operand.values[q++];
+                }
+            }
+            pointers[j+1] = count;
+        }
+        
+        return new SparseMatrix(height, width, pointers,
+                Arrays.copyOf(resultColumns, count),
+                Arrays.copyOf(resultValues, count));
+    }
+    
+    /**
+     * Returns <code>a*this + b*operand</code>, merging the rows of both
+     * matricies.
+     * 
+     * @param operand second summand
+     * @param a factor of this matrix
+     * @param b factor of the operand
+     * @return weighted sum
+     */
+    private SparseMatrix merge(SparseMatrix operand, double a, double b) {
+        checkDimensions(operand);
+        
+        final int[] pointers = new int[height + 1];
+        final int capacity = getNonZeros() + operand.getNonZeros();
+        final int[] resultColumns = new int[capacity];
+        final double[] resultValues = new double[capacity];
+        
+        int count = 0;
+        for(int j=0; j<height; j++) {
+            int p = rowPointers[j];
+            int q = operand.rowPointers[j];
+            final int pEnd = rowPointers[j+1];
+            final int qEnd = operand.rowPointers[j+1];
+            
+            while(p < pEnd || q < qEnd) {
+                final int pColumn = (p < pEnd) ? columnIndices[p] : width;
+                final int qColumn =
+                        (q < qEnd) ? operand.columnIndices[q] : width;
+                
+                if(pColumn < qColumn) {
+                    resultColumns[count] = pColumn;
+                    resultValues[count++] = a * values[p++];
+                } else if(pColumn > qColumn) {
+                    resultColumns[count] = qColumn;
+                    resultValues[count++] = b * operand.values[q++];
+                } else {
+                    resultColumns[count] = pColumn;
+                    resultValues[count++] =
+                            a * values[p++] + b * operand.values[q++];
+                }
+            }
+            pointers[j+1] = count;
+        }
+        
+        return new SparseMatrix(height, width, pointers,
+                Arrays.copyOf(resultColumns, count),
+                Arrays.copyOf(resultValues, count));
+    }
+    
+    /**
+     * Throws an exception if the given matrix has other dimensions than this
+     * matrix.
+     * 
+     * @param operand matrix to check
+     */
+    private void checkDimensions(SparseMatrix operand) {
+        if(height != operand.height || width != operand.width) {
+            throw new ArithmeticException("dimensions must agree");
+        }
+    }
+    
+    
+    
+    /**
+     * Applies the given operator on every stored element of this matrix.
+     * Elements that are not stored stay zero.
+     * 
+     * @param operator operator to apply on every stored element
+     */
+    public void apply(DoubleUnaryOperator operator) {
+        for(int p=0; p<getNonZeros(); p++) {
+            values[p] = operator.applyAsDouble(values[p]);
+        }
+    }
+    
+    /**
+     * Applies the given operator on every stored element of this matrix and
+     * returns the result.
+     * Elements that are not stored stay zero.
+     * 
+     * @param operator operator to apply on every stored element
+     * @return result of the operation
+     */
+    public SparseMatrix applyNew(DoubleUnaryOperator operator) {
+        final double[] result = new double[getNonZeros()];
+        for(int p=0; p<result.length; p++) {
+            result[p] = operator.applyAsDouble(values[p]);
+        }
+        
+        return new SparseMatrix(height, width,
+                rowPointers, columnIndices, result);
+    }
+    
+    
+    
+    /**
+     * Applies the given action on all rows, in parallel if there are enough
+     * stored elements.
+     * 
+     * @param action action to apply on every row index
+     */
+    private void forRows(IntConsumer action) {
+        if(getNonZeros() < PARALLEL_THRESHOLD) {
+            for(int j=0; j<height; j++) {
+                action.accept(j);
+            }
+        } else {
+            IntStream.range(0, height).parallel().forEach(action);
+        }
+    }
+    
+    /**
+     * Writes this matrix to a file in the MatrixMarket coordinate format.
+     * 
+     * @param path file to write
+     * @throws IOException if an I/O error occurs
+     * @see #readMatrixMarket(Path)
+     */
+    public void writeMatrixMarket(Path path) throws IOException {
+        MatrixMarket.write(this, path);
+    }
+    
+    /**
+     * Returns a dense copy of this matrix.
+     * 
+     * @return dense copy of this matrix
+     */
+    public Matrix toMatrix() {
+        return toMatrix(Matrix.Layout.NESTED);
+    }
+    
+    /**
+     * Returns a dense copy of this matrix with the given layout.
+     * 
+     * @param layout layout of the dense matrix
+     * @return dense copy of this matrix
+     */
+    public Matrix toMatrix(Matrix.Layout layout) {
+        final Matrix matrix = new Matrix(height, width, layout);
+        for(int j=0; j<height; j++) {
+            for(int p=rowPointers[j]; p<rowPointers[j+1]; p++) {
+                matrix.set(j, columnIndices[p], values[p]);
+            }
+        }
+        
+        return matrix;
+    }
+}
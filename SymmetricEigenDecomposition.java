@@ -0,0 +1,650 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Eigen decomposition of a symmetric matrix.
+ * The matrix is decomposed into <code>A = V*D*V^T</code>, where the columns
+ * of the orthogonal matrix <code>V</code> are the eigenvectors and the
+ * diagonal matrix <code>D</code> holds the eigenvalues in descending order.
+ * 
+ * The matrix is first reduced to tridiagonal form with Householder
+ * reflections on a flat copy. For all eigenpairs the reflections are
+ * accumulated and the tridiagonal matrix is diagonalized with the implicit
+ * QL algorithm. If only the largest eigenpairs are requested, only the
+ * eigenvalues are calculated with the QL algorithm and the eigenvectors are
+ * found by inverse iteration on the tridiagonal matrix and transformed back
+ * with the reflections, which avoids accumulating all of them.
+ * At most two arrays of the size of the matrix are allocated.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class SymmetricEigenDecomposition {
+    
+    /**
+     * Number of rows from which on the updates of the reduction are
+     * processed in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 256;
+    /**
+     * Number of inverse iterations per eigenvector.
+     */
+    private static final int INVERSE_ITERATIONS = 3;
+    /**
+     * Maximum number of QL iterations per eigenvalue.
+     */
+    private static final int MAX_ITERATIONS = 64;
+    
+    
+    
+    /**
+     * Number of rows and columns of the decomposed matrix.
+     */
+    private final int size;
+    /**
+     * Number of calculated eigenpairs.
+     */
+    private final int count;
+    /**
+     * Calculated eigenvalues in descending order.
+     */
+    private final double[] values;
+    /**
+     * Calculated eigenvectors, one per row in row-major order.
+     */
+    private final double[] vectors;
+    
+    
+    
+    /**
+     * Calculates all eigenvalues and eigenvectors of the given symmetric
+     * matrix.
+     * 
+     * @param matrix symmetric matrix to decompose
+     * @throws ArithmeticException if the matrix is not square
+     */
+    public SymmetricEigenDecomposition(Matrix matrix) {
+        this(matrix, matrix.getHeight());
+    }
+    
+    /**
+     * Calculates the <code>count</code> largest eigenvalues and the
+     * corresponding eigenvectors of the given symmetric matrix.
+     * 
+     * @param matrix symmetric matrix to decompose
+     * @param count number of eigenpairs to calculate
+     * @throws ArithmeticException if the matrix is not square
+     * @throws IllegalArgumentException if count is negative or larger than
+     * the size of the matrix
+     */
+    public SymmetricEigenDecomposition(Matrix matrix, int count) {
+        if(matrix.getHeight() != matrix.getWidth()) {
+            throw new ArithmeticException("eigen decomposition only defined "
+                    + "for square matricies");
+        }
+        if(count < 0 || count > matrix.getHeight()) {
+            throw new IllegalArgumentException("count out of range: "
+                    + count);
+        }
+        
+        size = matrix.getHeight();
+        this.count = count;
+        
+        final double[] a = matrix.toFlatArray();
+        final double[] d = new double[size];
+        final double[] e = new double[size];
+        final double[] tau = new double[size];
+        tridiagonalize(a, d, e, tau);
+        
+        if(count == size) {
+            final double[] z = accumulate(a, tau);
+            ql(d, e, z);
+            sortDescending(d, z);
+            values = d;
+            vectors = z;
+        } else {
+            final double[] diagonal = d.clone();
+            final double[] subdiagonal = e.clone();
+            ql(d, e, null);
+            sortDescending(d, null);
+            
+            values = new double[count];
+            System.arraycopy(d, 0, values, 0, count);
+            vectors = new double[Math.multiplyExact(count, size)];
+            inverseIteration(diagonal, subdiagonal);
+            
+            for(int v=0; v<count; v++) {
+                transformBack(a, tau, v);
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Reduces the given matrix to tridiagonal form with Householder
+     * reflections <code>I - tau*v*v^T</code>.
+     * The reflection vectors are stored above the superdiagonal of the rows
+     * of the matrix, the first element of a vector is an implicit one.
+     * 
+     * @param a matrix in row-major order, gets overwritten
+     * @param d array to store the diagonal in
+     * @param e array to store the subdiagonal in, the last element is zero
+     * @param tau array to store the factors of the reflections in
+     */
+    private void tridiagonalize(double[] a, double[] d, double[] e,
+            double[] tau) {
+        
+        final int n = size;
+        final double[] v = new double[n];
+        final double[] w = new double[n];
+        
+        for(int k=0; k<n-2; k++) {
+            d[k] = a[k*n + k];
+            
+            //x is the row right of the diagonal, equal to the column below it
+            final int m = n - k - 1;
+            final int x = k*n + k + 1;
+            
+            double scale = 0;
+            for(int i=0; i<m; i++) {
+                scale = Math.max(scale, Math.abs(a[x + i]));
+            }
+            double sigma = 0;
+            for(int i=1; i<m; i++) {
+                final double value = a[x + i] / scale;
+                sigma += value * value;
+            }
+            
+            if(scale == 0 || sigma == 0) {
+                tau[k] = 0;
+                e[k] = a[x];
+                continue;
+            }
+            
+            final double alpha = a[x];
+            final double norm = scale * Math.sqrt(
+                    (alpha / scale) * (alpha / scale) + sigma);
+            final double beta = -Math.copySign(norm, alpha);
+            final double t = tau[k] = (beta - alpha) / beta;
+            final double factor = 1 / (alpha - beta);
+            
+            v[0] = 1;
+            for(int i=1; i<m; i++) {
+                v[i] = a[x + i] *= factor;
+            }
+            a[x] = beta;
+            e[k] = beta;
+            
+            
+            
+            //w = tau*A22*v - (tau^2/2 * v^T*A22*v) * v
+            final int offset = (k + 1)*n + k + 1;
+            forRows(m, (i) -> {
+                double sum = 0;
+                final int row = offset + i*n;
+                for(int j=0; j<m; j++) {
+                    sum += a[row + j] * v[j];
+                }
+                w[i] = t * sum;
+            });
+            
+            double dot = 0;
+            for(int i=0; i<m; i++) {
+                dot += w[i] * v[i];
+            }
+            final double correction = t / 2 * dot;
+            for(int i=0; i<m; i++) {
+                w[i] -= correction * v[i];
+            }
+            
+            //A22 -= v*w^T + w*v^T
+            forRows(m, (i) -> {
+                final int row = offset + i*n;
+                final double vi = v[i], wi = w[i];
+                for(int j=0; j<m; j++) {
+                    a[row + j] -= vi * w[j] + wi * v[j];
+                }
+            });
+        }
+        
+        if(n >= 2) {
+            d[n-2] = a[(n-2)*n + n-2];
+            e[n-2] = a[(n-2)*n + n-1];
+        }
+        if(n >= 1) {
+            d[n-1] = a[(n-1)*n + n-1];
+            e[n-1] = 0;
+        }
+    }
+    
+    /**
+     * Applies the given action on all row indices up to the given count, in
+     * parallel if there are enough.
+     * 
+     * @param rows number of rows
+     * @param action action to apply on every row index
+     */
+    private static void forRows(int rows,
+            IntConsumer action) {
+        
+        if(rows < PARALLEL_THRESHOLD) {
+            for(int i=0; i<rows; i++) {
+                action.accept(i);
+            }
+        } else {
+            IntStream.range(0, rows).parallel().forEach(action);
+        }
+    }
+    
+    /**
+     * Accumulates the reflections into the transposed orthogonal matrix
+     * <code>Q^T</code>, so its rows are the columns of <code>Q</code>.
+     * 
+     * @param a reduced matrix containing the reflection vectors
+     * @param tau factors of the reflections
+     * @return transposed orthogonal matrix in row-major order
+     */
+    private double[] accumulate(double[] a, double[] tau) {
+        final int n = size;
+        final double[] q = new double[Math.multiplyExact(n, n)];
+        for(int k=0; k<n; k++) {
+            q[k*n + k] = 1;
+        }
+        
+        //Q = H_0 * ... * H_n-3, applied from the last one on, so only the
+        //lower right part of Q is touched
+        final double[] w = new double[n];
+        for(int k=n-3; k>=0; k--) {
+            if(tau[k] == 0) {
+                continue;
+            }
+            
+            final int first = k + 1;
+            for(int c=first; c<n; c++) {
+                w[c] = q[first*n + c];
+            }
+            for(int j=first+1; j<n; j++) {
+                final double v = a[k*n + j];
+                for(int c=first; c<n; c++) {
+                    w[c] += v * q[j*n + c];
+                }
+            }
+            
+            for(int c=first; c<n; c++) {
+                q[first*n + c] -= tau[k] * w[c];
+            }
+            for(int j=first+1; j<n; j++) {
+                final double v = tau[k] * a[k*n + j];
+                for(int c=first; c<n; c++) {
+                    q[j*n + c] -= v * w[c];
+                }
+            }
+        }
+        
+        //Transpose in-place
+        for(int j=0; j<n; j++) {
+            for(int i=j+1; i<n; i++) {
+                final double temp = q[j*n + i];
+                q[j*n + i] = q[i*n + j];
+                q[i*n + j] = temp;
+            }
+        }
+        
+        return q;
+    }
+    
+    /**
+     * Diagonalizes the given symmetric tridiagonal matrix with the implicit
+     * QL algorithm.
+     * If eigenvectors are given, the rotations are applied to them.
+     * 
+     * @param d diagonal, gets overwritten with the eigenvalues
+     * @param e subdiagonal with a trailing zero, gets destroyed
+     * @param z eigenvectors of the reduction, one per row in row-major order,
+     * or <code>null</code>
+     */
+    private void ql(double[] d, double[] e, double[] z) {
+        final int n = size;
+        final double eps = Math.ulp(1.0);
+        
+        double f = 0;
+        double tst1 = 0;
+        for(int l=0; l<n; l++) {
+            //Find small subdiagonal element
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while(m < n-1 && Math.abs(e[m]) > eps*tst1) {
+                m++;
+            }
+            
+            //If m == l, d[l] is already an eigenvalue, otherwise iterate
+            int iteration = 0;
+            while(m > l && Math.abs(e[l]) > eps*tst1) {
+                if(++iteration > MAX_ITERATIONS) {
+                    throw new ArithmeticException(
+                            "eigenvalues did not converge");
+                }
+                
+                //Compute implicit shift
+                double g = d[l];
+                double p = (d[l+1] - g) / (2 * e[l]);
+                double r = Math.hypot(p, 1);
+                if(p < 0) {
+                    r = -r;
+                }
+                d[l] = e[l] / (p + r);
+                d[l+1] = e[l] * (p + r);
+                final double dl1 = d[l+1];
+                double h = g - d[l];
+                for(int i=l+2; i<n; i++) {
+                    d[i] -= h;
+                }
+                f += h;
+                
+                //Implicit QL transformation
+                p = d[m];
+                double c = 1, c2 = c, c3 = c;
+                final double el1 = e[l+1];
+                double s = 0, s2 = 0;
+                for(int i=m-1; i>=l; i--) {
+                    c3 = c2;
+                    c2 = c;
+                    s2 = s;
+                    g = c * e[i];
+                    h = c * p;
+                    r = Math.hypot(p, e[i]);
+                    e[i+1] = s * r;
+                    s = e[i] / r;
+                    c = p / r;
+                    p = c * d[i] - s * g;
+                    d[i+1] = h + s * (c * g + s * d[i]);
+                    
+                    if(z != null) {
+                        for(int k=0; k<n; k++) {
+                            final double upper = z[(i+1)*n + k];
+                            z[(i+1)*n + k] = s * z[i*n + k] + c * upper;
+                            z[i*n + k] = c * z[i*n + k] - s * upper;
+                        }
+                    }
+                }
+                p = -s * s2 * c3 * el1 * e[l] / dl1;
+                e[l] = s * p;
+                d[l] = c * p;
+            }
+            
+            d[l] += f;
+            e[l] = 0;
+        }
+    }
+    
+    /**
+     * Sorts the eigenvalues in descending order.
+     * 
+     * @param d eigenvalues
+     * @param z corresponding eigenvectors, one per row, or <code>null</code>
+     */
+    private void sortDescending(double[] d, double[] z) {
+        final int n = size;
+        
+        for(int i=0; i<n-1; i++) {
+            int max = i;
+            for(int j=i+1; j<n; j++) {
+                if(d[j] > d[max]) {
+                    max = j;
+                }
+            }
+            
+            if(max != i) {
+                final double temp = d[i];
+                d[i] = d[max];
+                d[max] = temp;
+                
+                if(z != null) {
+                    for(int k=0; k<n; k++) {
+                        final double value = z[i*n + k];
+                        z[i*n + k] = z[max*n + k];
+                        z[max*n + k] = value;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Calculates the eigenvectors of the tridiagonal matrix for the
+     * calculated eigenvalues by inverse iteration.
+     * Vectors of close eigenvalues are orthogonalized against each other.
+     * 
+     * @param d diagonal of the tridiagonal matrix
+     * @param e subdiagonal of the tridiagonal matrix
+     */
+    private void inverseIteration(double[] d, double[] e) {
+        final int n = size;
+        
+        double norm = 0;
+        for(int i=0; i<n; i++) {
+            norm = Math.max(norm, Math.abs(d[i])
+                    + Math.abs(e[i]) + ((i > 0) ? Math.abs(e[i-1]) : 0));
+        }
+        final double tiny = Math.max(norm, Double.MIN_NORMAL) * Math.ulp(1.0);
+        final double cluster = 1e-3 * norm;
+        
+        final double[] u0 = new double[n];
+        final double[] u1 = new double[n];
+        final double[] u2 = new double[n];
+        final double[] multipliers = new double[n];
+        final boolean[] swapped = new boolean[n];
+        final double[] x = new double[n];
+        
+        for(int v=0; v<count; v++) {
+            //LU decomposition of T - lambda*I with partial pivoting
+            for(int i=0; i<n; i++) {
+                u0[i] = d[i] - values[v];
+                u1[i] = e[i];
+                u2[i] = 0;
+            }
+            for(int i=0; i<n-1; i++) {
+                final double sub = e[i];
+                if(Math.abs(u0[i]) >= Math.abs(sub)) {
+                    swapped[i] = false;
+                    if(u0[i] == 0) {
+                        u0[i] = tiny;
+                    }
+                    final double m = multipliers[i] = sub / u0[i];
+                    u0[i+1] -= m * u1[i];
+                } else {
+                    swapped[i] = true;
+                    final double m = multipliers[i] = u0[i] / sub;
+                    final double upper = u1[i];
+                    u0[i] = sub;
+                    u1[i] = u0[i+1];
+                    u2[i] = u1[i+1];
+                    u0[i+1] = upper - m * u1[i];
+                    u1[i+1] = -m * u2[i];
+                }
+            }
+            if(u0[n-1] == 0) {
+                u0[n-1] = tiny;
+            }
+            
+            //Start vector with all components present
+            for(int i=0; i<n; i++) {
+                x[i] = 1 + ((i * 7919 + v * 104729) % 101) / 1000.0;
+            }
+            
+            for(int iteration=0; iteration<INVERSE_ITERATIONS; iteration++) {
+                //Solve L*U*y = x
+                for(int i=0; i<n-1; i++) {
+                    if(swapped[i]) {
+                        final double temp = x[i];
+                        x[i] = x[i+1];
+                        x[i+1] = temp;
+                    }
+                    x[i+1] -= multipliers[i] * x[i];
+                }
+                for(int i=n-1; i>=0; i--) {
+                    double sum = x[i];
+                    if(i+1 < n) {
+                        sum -= u1[i] * x[i+1];
+                    }
+                    if(i+2 < n) {
+                        sum -= u2[i] * x[i+2];
+                    }
+                    x[i] = sum / u0[i];
+                }
+                
+                //Orthogonalize against vectors of close eigenvalues
+                for(int p=0; p<v; p++) {
+                    if(Math.abs(values[p] - values[v]) > cluster) {
+                        continue;
+                    }
+                    
+                    double dot = 0;
+                    for(int i=0; i<n; i++) {
+                        dot += vectors[p*n + i] * x[i];
+                    }
+                    for(int i=0; i<n; i++) {
+                        x[i] -= dot * vectors[p*n + i];
+                    }
+                }
+                
+                double length = 0;
+                for(int i=0; i<n; i++) {
+                    length += x[i] * x[i];
+                }
+                length = Math.sqrt(length);
+                for(int i=0; i<n; i++) {
+                    x[i] /= length;
+                }
+            }
+            
+            System.arraycopy(x, 0, vectors, v*n, n);
+        }
+    }
+    
+    /**
+     * Transforms an eigenvector of the tridiagonal matrix back into an
+     * eigenvector of the original matrix by applying the reflections.
+     * 
+     * @param a reduced matrix containing the reflection vectors
+     * @param tau factors of the reflections
+     * @param v index of the eigenvector to transform
+     */
+    private void transformBack(double[] a, double[] tau, int v) {
+        final int n = size;
+        final int x = v*n;
+        
+        for(int k=n-3; k>=0; k--) {
+            if(tau[k] == 0) {
+                continue;
+            }
+            
+            double dot = vectors[x + k + 1];
+            for(int j=k+2; j<n; j++) {
+                dot += a[k*n + j] * vectors[x + j];
+            }
+            dot *= tau[k];
+            
+            vectors[x + k + 1] -= dot;
+            for(int j=k+2; j<n; j++) {
+                vectors[x + j] -= dot * a[k*n + j];
+            }
+        }
+    }
+    
+    
+    
+    /**
+     * Returns the number of rows and columns of the decomposed matrix.
+     * 
+     * @return number of rows and columns
+     */
+    public int getSize() {
+        return size;
+    }
+    
+    /**
+     * Returns the number of calculated eigenpairs.
+     * 
+     * @return number of calculated eigenpairs
+     */
+    public int getCount() {
+        return count;
+    }
+    
+    /**
+     * Returns the calculated eigenvalues in descending order.
+     * 
+     * @return copy of the eigenvalues
+     */
+    public double[] getEigenvalues() {
+        return values.clone();
+    }
+    
+    /**
+     * Returns the eigenvector of the eigenvalue with the given index.
+     * 
+     * @param index index of the eigenvalue
+     * @return copy of the normalized eigenvector
+     */
+    public double[] getEigenvector(int index) {
+        final double[] vector = new double[size];
+        System.arraycopy(vectors, index * size, vector, 0, size);
+        
+        return vector;
+    }
+    
+    /**
+     * Returns the diagonal matrix <code>D</code> of the eigenvalues.
+     * 
+     * @return diagonal matrix of the eigenvalues
+     */
+    public Matrix getD() {
+        return new Matrix(count, count, (j, i) -> (j == i) ? values[j] : 0);
+    }
+    
+    /**
+     * Returns the matrix <code>V</code> whose columns are the eigenvectors.
+     * 
+     * @return matrix of the eigenvectors
+     */
+    public Matrix getV() {
+        final Matrix v = new Matrix(size, count, Matrix.Layout.FLAT);
+        v.setParallel((j, i) -> vectors[i*size + j]);
+        
+        return v;
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+
+
+/**
+ * Cache-blocked transposition kernels.
+ * The matrix is transposed in square tiles small enough that the rows read
+ * and the rows written of a tile stay in the L1 cache, so every cache line
+ * is loaded only once instead of once per element.
+ * Bands of tiles are processed in parallel.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+final class Transpose {
+    
+    /**
+     * Number of rows and columns of a tile.
+     */
+    static final int BLOCK = 32;
+    /**
+     * Number of elements from which on the bands are processed in parallel.
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+    
+    
+    
+    /**
+     * Static class, no instances.
+     */
+    private Transpose() {}
+    
+    
+    
+    /**
+     * Writes the transpose of <code>a</code> into <code>result</code>.
+     * 
+     * @param a matrix to transpose
+     * @param height number of rows of <code>a</code>
+     * @param width number of columns of <code>a</code>
+     * @param result storage with <code>width</code> rows and
+     * <code>height</code> columns, must not share elements with
+     * <code>a</code>
+     */
+    static void transpose(MatrixStorage a, int height, int width,
+            MatrixStorage result) {
+        forBands(height, width, (rowFrom) -> band(a, result,
+                rowFrom, Math.min(height, rowFrom + BLOCK), width));
+    }
+    
+    /**
+     * Transposes the given square matrix in place by swapping tiles above
+     * the diagonal with the ones below it.
+     * 
+     * @param a matrix to transpose
+     * @param size number of rows and columns
+     */
+    static void transposeSquare(MatrixStorage a, int size) {
+        forBands(size, size, (rowFrom) -> {
+            final int rowTo = Math.min(size, rowFrom + BLOCK);
+            for(int i=rowFrom; i<size; i+=BLOCK) {
+                swapTiles(a, rowFrom, rowTo, i, Math.min(size, i+BLOCK));
+            }
+        });
+    }
+    
+    /**
+     * Transposes the matrix stored contiguously in row-major order in the
+     * given array in place by following the cycles of the permutation.
+     * The element at index <code>k</code> moves to
+     * <code>k*height mod (height*width - 1)</code>.
+     * Only needs one bit of extra memory per element, but the elements are
+     * accessed in random order.
+     * 
+     * @param data array containing the matrix
+     * @param offset index of the first element
+     * @param height number of rows
+     * @param width number of columns
+     */
+    static void transposeFlat(double[] data, int offset,
+            int height, int width) {
+        final int size = Math.multiplyExact(height, width);
+        if(height <= 1 || width <= 1) {
+            return;
+        }
+        
+        final long last = size - 1;
+        final BitSet visited = new BitSet(size);
+        for(int start=1; start<last; start++) {
+            if(visited.get(start)) {
+                continue;
+            }
+            
+            int k = start;
+            double value = data[offset + start];
+            do {
+                k = (int)((long)k * height % last);
+                final double next = data[offset + k];
+                data[offset + k] = value;
+                value = next;
+                visited.set(k);
+            } while(k != start);
+        }
+    }
+    
+    /**
+     * Writes the transpose of <code>a</code> into <code>result</code> tile
+     * by tile.
+     * 
+     * @param a matrix to transpose
+     * @param result array with <code>width</code> rows
+     * @param height number of rows of <code>a</code>
+     * @param width number of columns of <code>a</code>
+     */
+    static void transpose(Object[][] a, Object[][] result,
+            int height, int width) {
+        forBands(height, width, (rowFrom) -> {
+            final int rowTo = Math.min(height, rowFrom + BLOCK);
+            for(int i=0; i<width; i+=BLOCK) {
+                final int columnTo = Math.min(width, i + BLOCK);
+                for(int k=i; k<columnTo; k++) {
+                    for(int j=rowFrom; j<rowTo; j++) {
+                        result[k][j] = a[j][k];
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Transposes the given square array in place tile by tile.
+     * 
+     * @param a array to transpose
+     * @param size number of rows and columns
+     */
+    static void transposeSquare(Object[][] a, int size) {
+        forBands(size, size, (rowFrom) -> {
+            final int rowTo = Math.min(size, rowFrom + BLOCK);
+            for(int i=rowFrom; i<size; i+=BLOCK) {
+                final int columnTo = Math.min(size, i + BLOCK);
+                for(int j=rowFrom; j<rowTo; j++) {
+                    for(int k=Math.max(i, j+1); k<columnTo; k++) {
+                        final Object swap = a[j][k];
+                        a[j][k] = a[k][j];
+                        a[k][j] = swap;
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Writes the transpose of the flat single precision array <code>a</code>
+     * in row-major order into <code>result</code>, tile by tile.
+     * 
+     * @param a array to transpose
+     * @param result array of the same length to write the transpose into
+     * @param height number of rows of <code>a</code>
+     * @param width number of columns of <code>a</code>
+     */
+    static void transpose(float[] a, float[] result, int height, int width) {
+        forBands(height, width, (rowFrom) -> {
+            final int rowTo = Math.min(height, rowFrom + BLOCK);
+            for(int i=0; i<width; i+=BLOCK) {
+                final int columnTo = Math.min(width, i + BLOCK);
+                for(int k=i; k<columnTo; k++) {
+                    for(int j=rowFrom; j<rowTo; j++) {
+                        result[k*height + j] = a[j*width + k];
+                    }
+                }
+            }
+        });
+    }
+    
+    
+    
+    /**
+     * Applies the given action on the first row of every band of
+     * {@link #BLOCK} rows, in parallel if the matrix is large enough.
+     * 
+     * @param height number of rows
+     * @param width number of columns
+     * @param action action to apply on the first row of every band
+     */
+    private static void forBands(int height, int width, IntConsumer action) {
+        final int bands = (height + BLOCK - 1) / BLOCK;
+        
+        if((long)height * width < PARALLEL_THRESHOLD) {
+            for(int band=0; band<bands; band++) {
+                action.accept(band * BLOCK);
+            }
+        } else {
+            IntStream.range(0, bands).parallel()
+                    .forEach((band) -> action.accept(band * BLOCK));
+        }
+    }
+    
+    /**
+     * Writes the transpose of a band of rows of <code>a</code> into
+     * <code>result</code>, one tile after another.
+     * Every row of the result is written contiguously while the rows of the
+     * tile of <code>a</code> are read from the cache.
+     * 
+     * @param a matrix to transpose
+     * @param result storage to write the transpose into
+     * @param rowFrom first row of the band (inclusive)
+     * @param rowTo last row of the band (exclusive)
+     * @param width number of columns of <code>a</code>
+     */
+    private static void band(MatrixStorage a, MatrixStorage result,
+            int rowFrom, int rowTo, int width) {
+        
+        final int rows = rowTo - rowFrom;
+        final double[][] arrays = new double[rows][];
+        final int[] offsets = new int[rows];
+        boolean direct = true;
+        for(int j=0; j<rows; j++) {
+            arrays[j] = a.rowArray(rowFrom + j);
+            offsets[j] = a.rowOffset(rowFrom + j);
+            direct &= arrays[j] != null;
+        }
+        
+        for(int columnFrom=0; columnFrom<width; columnFrom+=BLOCK) {
+            final int columnTo = Math.min(width, columnFrom + BLOCK);
+            
+            for(int i=columnFrom; i<columnTo; i++) {
+                final double[] row = result.rowArray(i);
+                
+                if(direct && row != null) {
+                    final int offset = result.rowOffset(i) + rowFrom;
+                    for(int j=0; j<rows; j++) {
+                        row[offset + j] = arrays[j][offsets[j] + i];
+                    }
+                } else {
+                    for(int j=0; j<rows; j++) {
+                        result.set(i, rowFrom + j, a.get(rowFrom + j, i));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Swaps a tile above the diagonal with its mirrored tile below the
+     * diagonal, or transposes a tile on the diagonal in place.
+     * 
+     * @param a matrix to transpose
+     * @param rowFrom first row of the tile (inclusive)
+     * @param rowTo last row of the tile (exclusive)
+     * @param columnFrom first column of the tile (inclusive)
+     * @param columnTo last column of the tile (exclusive)
+     */
+    private static void swapTiles(MatrixStorage a,
+            int rowFrom, int rowTo, int columnFrom, int columnTo) {
+        
+        for(int j=rowFrom; j<rowTo; j++) {
+            final double[] row = a.rowArray(j);
+            final int offset = a.rowOffset(j);
+            
+            for(int i=Math.max(columnFrom, j+1); i<columnTo; i++) {
+                final double[] mirror = a.rowArray(i);
+                if(row != null && mirror != null) {
+                    final int index = offset + i;
+                    final int mirrorIndex = a.rowOffset(i) + j;
+                    final double swap = row[index];
+                    row[index] = mirror[mirrorIndex];
+                    mirror[mirrorIndex] = swap;
+                } else {
+                    final double swap = a.get(j, i);
+                    a.set(j, i, a.get(i, j));
+                    a.set(i, j, swap);
+                }
+            }
+        }
+    }
+}
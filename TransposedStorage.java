@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+
+
+/**
+ * Storage which accesses another storage transposed.
+ * The element at <code>(row, column)</code> is the element at
+ * <code>(column, row)</code> of the underlying storage, which is shared.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+class TransposedStorage extends MatrixStorage {
+    
+    /**
+     * Underlying storage.
+     */
+    private final MatrixStorage base;
+    
+    
+    
+    /**
+     * Constructs a new storage accessing the given storage transposed.
+     * 
+     * @param base underlying storage
+     */
+    TransposedStorage(MatrixStorage base) {
+        this.base = base;
+    }
+    
+    
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    double get(int row, int column) {
+        return base.get(column, row);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void set(int row, int column, double value) {
+        base.set(column, row, value);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Matrix.Layout getLayout() {
+        return base.getLayout();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage create(int height, int width) {
+        return base.create(height, width);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage view(int row, int column, int height, int width) {
+        return new TransposedStorage(base.view(column, row, width, height));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    MatrixStorage transposedView() {
+        return base;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object array() {
+        return base.array();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    boolean sameElements(MatrixStorage other) {
+        return other instanceof TransposedStorage
+                && base.sameElements(((TransposedStorage)other).base);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    void close() {
+        base.close();
+    }
+}
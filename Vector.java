@@ -0,0 +1,186 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2019 Sebastian Gössl
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a
+ * copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+
+
+
+package matrix;
+
+import java.util.Arrays;
+
+
+
+/**
+ * Vector class used to store and operate on column vectors.
+ * The elements are stored in a single array and are zero indexed.
+ * 
+ * The size is immutable. Matricies multiply with vectors directly, see
+ * {@link Matrix#multiply(Vector)} and
+ * {@link Matrix#multiplyInto(Vector, Vector)}.
+ * 
+ * 
+ * @author Sebastian Gössl
+ * @version 1.0 18.10.2026
+ */
+public class Vector {
+    
+    /**
+     * Elements of the vector.
+     */
+    final double[] data;
+    
+    
+    
+    /**
+     * Constructs a copy of the given vector.
+     * 
+     * @param other vector to copy
+     */
+    public Vector(Vector other) {
+        this(other.data);
+    }
+    
+    /**
+     * Constructs a new vector with the given elements.
+     * The elements are copied.
+     * 
+     * @param elements elements of the vector
+     */
+    public Vector(double... elements) {
+        data = elements.clone();
+    }
+    
+    /**
+     * Constructs a new vector with <code>size</code> elements initialized
+     * with 0.
+     * 
+     * @param size number of elements
+     */
+    public Vector(int size) {
+        data = new double[size];
+    }
+    
+    
+    
+    /**
+     * Returns the number of elements.
+     * 
+     * @return number of elements
+     */
+    public int getSize() {
+        return data.length;
+    }
+    
+    /**
+     * Returns the element at the specified position.
+     * 
+     * @param index index of the element to return
+     * @return the element at the specified position
+     */
+    public double get(int index) {
+        return data[index];
+    }
+    
+    /**
+     * Replaces the element at the specified position with the specified
+     * element.
+     * 
+     * @param index index of the element to set
+     * @param value element to be stored at the specified position
+     * @return element previously at the specified position
+     */
+    public double set(int index, double value) {
+        final double oldElement = data[index];
+        data[index] = value;
+        return oldElement;
+    }
+    
+    /**
+     * Replaces all elements of this vector with the elements of the given
+     * vector.
+     * 
+     * @param other vector to copy the elements from
+     * @throws ArithmeticException if the sizes differ
+     */
+    public void set(Vector other) {
+        checkSize(other);
+        System.arraycopy(other.data, 0, data, 0, data.length);
+    }
+    
+    
+    
+    /**
+     * Returns the dot product of this vector and the given vector.
+     * 
+     * @param operand second factor
+     * @return dot product
+     * @throws ArithmeticException if the sizes differ
+     */
+    public double dot(Vector operand) {
+        checkSize(operand);
+        return Gemv.dot(data, 0, operand.data, data.length);
+    }
+    
+    /**
+     * Throws an exception if the given vector has another size than this
+     * vector.
+     * 
+     * @param operand vector to check
+     */
+    private void checkSize(Vector operand) {
+        if(data.length != operand.data.length) {
+            throw new ArithmeticException("sizes must agree");
+        }
+    }
+    
+    
+    
+    /**
+     * Returns a copy of this vector as an array.
+     * 
+     * @return copy of this vector as an array
+     */
+    public double[] toArray() {
+        return data.clone();
+    }
+    
+    /**
+     * Returns a copy of this vector as a matrix with a single column.
+     * 
+     * @return copy of this vector as a column matrix
+     */
+    public Matrix toMatrix() {
+        return new Matrix(data.length, 1, (j, i) -> data[j]);
+    }
+    
+    /**
+     * Returns a string representation of the contents of this vector.
+     * 
+     * @return string representation of the contents of this vector
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(data);
+    }
+}